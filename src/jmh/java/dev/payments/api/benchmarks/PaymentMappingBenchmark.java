@@ -0,0 +1,58 @@
+package dev.payments.api.benchmarks;
+
+import dev.payments.api.domain.entities.Payment;
+import dev.payments.api.domain.entities.PaymentMethod;
+import dev.payments.api.domain.entities.PaymentStatus;
+import dev.payments.api.presentation.dtos.CreatePaymentDto;
+import dev.payments.api.presentation.dtos.PaymentDto;
+import dev.payments.api.presentation.dtos.VersionedPaymentDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity and DTO conversions done on every request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PaymentMappingBenchmark {
+
+    private Payment payment;
+
+    private CreatePaymentDto createPaymentDto;
+
+    @Setup
+    public void setUp() {
+
+        payment = new Payment();
+        payment.setId(UUID.randomUUID());
+        payment.setDebitCode(1L);
+        payment.setUserIdentification("12345678901");
+        payment.setMethod(PaymentMethod.PIX);
+        payment.setStatus(PaymentStatus.PENDING);
+        payment.setPaymentValue(BigDecimal.TEN);
+        payment.setVersion(0L);
+
+        createPaymentDto = new CreatePaymentDto(1L, "12345678901", PaymentMethod.PIX, null, BigDecimal.TEN);
+
+    }
+
+    @Benchmark
+    public PaymentDto toPaymentDto() {
+        return new PaymentDto(payment);
+    }
+
+    @Benchmark
+    public VersionedPaymentDto toVersionedPaymentDto() {
+        return new VersionedPaymentDto(payment);
+    }
+
+    @Benchmark
+    public Payment fromCreatePaymentDto() {
+        return new Payment(createPaymentDto);
+    }
+
+}
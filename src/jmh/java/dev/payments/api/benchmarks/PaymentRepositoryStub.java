@@ -0,0 +1,34 @@
+package dev.payments.api.benchmarks;
+
+import dev.payments.api.domain.entities.Payment;
+import dev.payments.api.domain.repositories.PaymentRepository;
+
+import java.lang.reflect.Proxy;
+import java.util.Optional;
+
+/**
+ * In-memory stand-in for the repository, so the service benchmarks measure the service
+ * code and not H2 or a mocking framework.
+ */
+final class PaymentRepositoryStub {
+
+    private PaymentRepositoryStub() {
+    }
+
+    static PaymentRepository returning(Payment foundPayment) {
+        return (PaymentRepository) Proxy.newProxyInstance(
+                PaymentRepository.class.getClassLoader(),
+                new Class<?>[]{PaymentRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "save" -> args[0];
+                    case "findById" -> Optional.of(foundPayment);
+                    case "updateStatus", "cancel" -> 1;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "PaymentRepositoryStub";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                }
+        );
+    }
+
+}
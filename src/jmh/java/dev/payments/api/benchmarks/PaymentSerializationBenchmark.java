@@ -0,0 +1,62 @@
+package dev.payments.api.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import dev.payments.api.domain.entities.PaymentMethod;
+import dev.payments.api.domain.entities.PaymentStatus;
+import dev.payments.api.presentation.dtos.PaymentDto;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON rendering of a GET /payments page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PaymentSerializationBenchmark {
+
+    @Param({"20", "200"})
+    private int pageSize;
+
+    private ObjectWriter writer;
+
+    private Page<PaymentDto> page;
+
+    @Setup
+    public void setUp() {
+
+        writer = Jackson2ObjectMapperBuilder.json().build().writer();
+
+        List<PaymentDto> content = new ArrayList<>(pageSize);
+
+        for (int index = 0; index < pageSize; index++) {
+            content.add(new PaymentDto(
+                    UUID.randomUUID(),
+                    (long) index,
+                    "12345678901",
+                    PaymentMethod.PIX,
+                    PaymentStatus.PENDING,
+                    BigDecimal.valueOf(index, 2)
+            ));
+        }
+
+        page = new PageImpl<>(content, PageRequest.of(0, pageSize), 10_000);
+
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws JsonProcessingException {
+        return writer.writeValueAsBytes(page);
+    }
+
+}
@@ -0,0 +1,104 @@
+package dev.payments.api.benchmarks;
+
+import dev.payments.api.domain.entities.Payment;
+import dev.payments.api.domain.entities.PaymentMethod;
+import dev.payments.api.domain.entities.PaymentStatus;
+import dev.payments.api.domain.services.PaymentServiceImpl;
+import dev.payments.api.infrastructure.metrics.PaymentMetrics;
+import dev.payments.api.infrastructure.sharding.PaymentShards;
+import dev.payments.api.presentation.dtos.CreatePaymentDto;
+import dev.payments.api.presentation.dtos.PaymentDto;
+import dev.payments.api.presentation.dtos.UpdatePaymentStatusDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service-level checks of POST and PUT /payments, without persistence.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PaymentServiceBenchmark {
+
+    private PaymentServiceImpl paymentService;
+
+    private UUID paymentId;
+
+    private CreatePaymentDto pixPayment;
+
+    private CreatePaymentDto cardPayment;
+
+    private UpdatePaymentStatusDto successStatus;
+
+    private UpdatePaymentStatusDto pendingStatus;
+
+    @Setup
+    public void setUp() {
+
+        paymentId = UUID.randomUUID();
+
+        Payment foundPayment = new Payment();
+        foundPayment.setId(paymentId);
+        foundPayment.setDebitCode(1L);
+        foundPayment.setUserIdentification("12345678901");
+        foundPayment.setMethod(PaymentMethod.PIX);
+        foundPayment.setStatus(PaymentStatus.PENDING);
+        foundPayment.setPaymentValue(BigDecimal.TEN);
+        foundPayment.setVersion(0L);
+
+        paymentService = new PaymentServiceImpl(
+                PaymentRepositoryStub.returning(foundPayment),
+                null, // the stub finds every payment, so the archive is never read
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                new PaymentMetrics(new SimpleMeterRegistry()),
+                event -> { },
+                null, // only the batch operations use the transaction manager
+                PaymentShards.single()
+        );
+
+        pixPayment = new CreatePaymentDto(1L, "12345678901", PaymentMethod.PIX, null, BigDecimal.TEN);
+        cardPayment = new CreatePaymentDto(
+                1L,
+                "12345678901234",
+                PaymentMethod.CREDIT_CARD,
+                "4111111111111111",
+                BigDecimal.TEN
+        );
+
+        successStatus = new UpdatePaymentStatusDto(PaymentStatus.SUCCESS);
+        pendingStatus = new UpdatePaymentStatusDto(PaymentStatus.PENDING);
+
+    }
+
+    @Benchmark
+    public PaymentDto createPixPayment() {
+        return paymentService.createPayment(pixPayment);
+    }
+
+    @Benchmark
+    public PaymentDto createCardPayment() {
+        return paymentService.createPayment(cardPayment);
+    }
+
+    @Benchmark
+    public PaymentDto allowedStatusTransition() {
+        return paymentService.updatePaymentStatus(paymentId, successStatus);
+    }
+
+    // PENDING -> PENDING is rejected; includes the cost of building the exception.
+    @Benchmark
+    public Object rejectedStatusTransition() {
+        try {
+            return paymentService.updatePaymentStatus(paymentId, pendingStatus);
+        } catch (ResponseStatusException e) {
+            return e;
+        }
+    }
+
+}
@@ -0,0 +1,48 @@
+package dev.payments.api.benchmarks;
+
+import dev.payments.api.domain.entities.PaymentMethod;
+import dev.payments.api.presentation.dtos.CreatePaymentDto;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bean validation of the POST /payments body, dominated by the userIdentification regex.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PaymentValidationBenchmark {
+
+    private Validator validator;
+
+    private CreatePaymentDto validPayment;
+
+    private CreatePaymentDto invalidIdentification;
+
+    @Setup
+    public void setUp() {
+
+        validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+        validPayment = new CreatePaymentDto(1L, "12345678901234", PaymentMethod.PIX, null, BigDecimal.TEN);
+        invalidIdentification = new CreatePaymentDto(1L, "1234567890x", PaymentMethod.PIX, null, BigDecimal.TEN);
+
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<CreatePaymentDto>> validPayment() {
+        return validator.validate(validPayment);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<CreatePaymentDto>> invalidIdentification() {
+        return validator.validate(invalidIdentification);
+    }
+
+}
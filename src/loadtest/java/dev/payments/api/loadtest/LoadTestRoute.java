@@ -0,0 +1,20 @@
+package dev.payments.api.loadtest;
+
+import java.util.Locale;
+
+enum LoadTestRoute {
+
+    CREATE,
+    UPDATE,
+    LIST,
+    DELETE;
+
+    String key() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    static LoadTestRoute fromKey(String key) {
+        return valueOf(key.trim().toUpperCase(Locale.ROOT));
+    }
+
+}
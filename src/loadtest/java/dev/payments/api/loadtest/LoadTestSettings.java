@@ -0,0 +1,67 @@
+package dev.payments.api.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Harness settings, read from {@code loadtest.*} system properties.
+ *
+ * @param mix relative weight of each route, e.g. {@code create=40,update=20,list=30,delete=10}
+ */
+record LoadTestSettings(int clients, Duration warmup, Duration duration, Map<LoadTestRoute, Integer> mix, Path report) {
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Integer.getInteger("loadtest.clients", 32),
+                Duration.parse(System.getProperty("loadtest.warmup", "PT10S")),
+                Duration.parse(System.getProperty("loadtest.duration", "PT30S")),
+                parseMix(System.getProperty("loadtest.mix", "create=40,update=20,list=30,delete=10")),
+                Path.of(System.getProperty("loadtest.report", "target/loadtest-report.json"))
+        );
+    }
+
+    LoadTestRoute nextRoute() {
+
+        int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+
+        for (Map.Entry<LoadTestRoute, Integer> entry : mix.entrySet()) {
+            pick -= entry.getValue();
+            if (pick < 0) {
+                return entry.getKey();
+            }
+        }
+
+        throw new IllegalStateException("Unreachable");
+
+    }
+
+    private static Map<LoadTestRoute, Integer> parseMix(String value) {
+
+        Map<LoadTestRoute, Integer> mix = new EnumMap<>(LoadTestRoute.class);
+
+        for (String part : value.split(",")) {
+
+            String[] pair = part.split("=");
+            int weight = Integer.parseInt(pair[1].trim());
+
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight in loadtest.mix: " + part);
+            }
+
+            mix.put(LoadTestRoute.fromKey(pair[0]), weight);
+
+        }
+
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("loadtest.mix has no positive weight: " + value);
+        }
+
+        return mix;
+
+    }
+
+}
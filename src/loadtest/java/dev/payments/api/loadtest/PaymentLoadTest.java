@@ -0,0 +1,300 @@
+package dev.payments.api.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.payments.api.ApiApplication;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Boots the API on a random port with the in-memory H2 database and drives a weighted mix
+ * of create, update, list and delete requests from {@code loadtest.clients} closed-loop
+ * clients. Prints a summary and writes a JSON report to {@code loadtest.report}.
+ * <p>
+ * Updates and deletes take a payment created earlier in the run; when none is left the
+ * client creates one instead, which is counted as a create.
+ */
+public final class PaymentLoadTest {
+
+    private static final int SEEDED_PAYMENTS = 1_000;
+
+    private static final String[] USER_IDENTIFICATIONS = {"12345678901", "12345678901234"};
+
+    private final LoadTestSettings settings;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ConcurrentLinkedQueue<UUID> pendingPayments = new ConcurrentLinkedQueue<>();
+
+    private final Map<LoadTestRoute, RouteStats> stats = new EnumMap<>(LoadTestRoute.class);
+
+    private final URI baseUri;
+
+    private volatile boolean running = true;
+
+    private PaymentLoadTest(LoadTestSettings settings, int port) {
+        this.settings = settings;
+        this.baseUri = URI.create("http://localhost:" + port + "/payments");
+        for (LoadTestRoute route : LoadTestRoute.values()) {
+            stats.put(route, new RouteStats());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        ConfigurableApplicationContext context = SpringApplication.run(
+                ApiApplication.class,
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest",
+                "--logging.level.root=WARN"
+        );
+
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            new PaymentLoadTest(settings, port).run();
+        } finally {
+            SpringApplication.exit(context);
+        }
+
+    }
+
+    private void run() throws Exception {
+
+        for (int index = 0; index < SEEDED_PAYMENTS; index++) {
+            create();
+        }
+
+        ExecutorService clients = Executors.newFixedThreadPool(settings.clients());
+
+        for (int index = 0; index < settings.clients(); index++) {
+            clients.execute(this::clientLoop);
+        }
+
+        Thread.sleep(settings.warmup().toMillis());
+        stats.values().forEach(RouteStats::reset);
+
+        Instant startedAt = Instant.now();
+        long start = System.nanoTime();
+
+        Thread.sleep(settings.duration().toMillis());
+
+        stats.values().forEach(RouteStats::stop);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        running = false;
+        clients.shutdown();
+        clients.awaitTermination(1, TimeUnit.MINUTES);
+
+        writeReport(startedAt, seconds);
+
+    }
+
+    private void clientLoop() {
+
+        while (running) {
+
+            LoadTestRoute route = settings.nextRoute();
+            long start = System.nanoTime();
+            boolean success;
+
+            try {
+                success = switch (route) {
+                    case CREATE -> create();
+                    case LIST -> list();
+                    case UPDATE -> update(pendingPayments.poll());
+                    case DELETE -> delete(pendingPayments.poll());
+                };
+            } catch (NoPendingPaymentException e) {
+                route = LoadTestRoute.CREATE;
+                start = System.nanoTime();
+                success = createQuietly();
+            } catch (Exception e) {
+                success = false;
+            }
+
+            stats.get(route).record(System.nanoTime() - start, success);
+
+        }
+
+    }
+
+    private boolean create() throws Exception {
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("debitCode", random.nextLong(1, 1_000_000));
+        body.put("userIdentification", USER_IDENTIFICATIONS[random.nextInt(USER_IDENTIFICATIONS.length)]);
+        body.put("method", "PIX");
+        body.put("paymentValue", random.nextInt(1, 100_000) / 100.0);
+
+        HttpResponse<String> response = client.send(
+                HttpRequest.newBuilder(baseUri)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString()
+        );
+
+        if (response.statusCode() != 201) {
+            return false;
+        }
+
+        JsonNode payment = objectMapper.readTree(response.body());
+        pendingPayments.add(UUID.fromString(payment.get("id").asText()));
+
+        return true;
+
+    }
+
+    private boolean createQuietly() {
+        try {
+            return create();
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private boolean list() throws Exception {
+
+        HttpResponse<Void> response = client.send(
+                HttpRequest.newBuilder(URI.create(baseUri + "?size=20")).GET().build(),
+                HttpResponse.BodyHandlers.discarding()
+        );
+
+        return response.statusCode() == 200;
+
+    }
+
+    private boolean update(UUID paymentId) throws Exception {
+
+        if (paymentId == null) {
+            throw new NoPendingPaymentException();
+        }
+
+        String status = ThreadLocalRandom.current().nextBoolean() ? "SUCCESS" : "FAILED";
+
+        HttpResponse<Void> response = client.send(
+                HttpRequest.newBuilder(URI.create(baseUri + "/" + paymentId))
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofString("{\"status\":\"" + status + "\"}"))
+                        .build(),
+                HttpResponse.BodyHandlers.discarding()
+        );
+
+        return response.statusCode() == 200;
+
+    }
+
+    private boolean delete(UUID paymentId) throws Exception {
+
+        if (paymentId == null) {
+            throw new NoPendingPaymentException();
+        }
+
+        HttpResponse<Void> response = client.send(
+                HttpRequest.newBuilder(URI.create(baseUri + "/" + paymentId)).DELETE().build(),
+                HttpResponse.BodyHandlers.discarding()
+        );
+
+        return response.statusCode() == 204;
+
+    }
+
+    private void writeReport(Instant startedAt, double seconds) throws Exception {
+
+        Map<String, Object> settingsReport = new LinkedHashMap<>();
+        settingsReport.put("clients", settings.clients());
+        settingsReport.put("warmup", settings.warmup().toString());
+        settingsReport.put("duration", settings.duration().toString());
+        settingsReport.put("mix", settings.mix().entrySet().stream().collect(
+                LinkedHashMap::new,
+                (map, entry) -> map.put(entry.getKey().key(), entry.getValue()),
+                Map::putAll
+        ));
+
+        Map<String, Object> routes = new LinkedHashMap<>();
+        Histogram total = new Histogram(3);
+        long totalErrors = 0;
+
+        System.out.printf("%n%-8s %10s %8s %10s %10s %10s %10s%n",
+                "route", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms");
+
+        for (Map.Entry<LoadTestRoute, RouteStats> entry : stats.entrySet()) {
+
+            Map<String, Object> routeReport = entry.getValue().toReport(seconds);
+            routes.put(entry.getKey().key(), routeReport);
+
+            total.add(entry.getValue().histogram());
+            totalErrors += (long) routeReport.get("errors");
+
+            printRow(entry.getKey().key(), routeReport);
+
+        }
+
+        Map<String, Object> totalReport = RouteStats.toReport(total, totalErrors, seconds);
+        printRow("total", totalReport);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("startedAt", startedAt.toString());
+        report.put("seconds", seconds);
+        report.put("settings", settingsReport);
+        report.put("routes", routes);
+        report.put("total", totalReport);
+
+        Files.createDirectories(settings.report().toAbsolutePath().getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(settings.report().toFile(), report);
+
+        System.out.println("\nReport written to " + settings.report().toAbsolutePath());
+
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void printRow(String name, Map<String, Object> report) {
+
+        Map<String, Object> latency = (Map<String, Object>) report.get("latencyMs");
+
+        System.out.printf("%-8s %10d %8d %10.1f %10.2f %10.2f %10.2f%n",
+                name,
+                (long) report.get("requests"),
+                (long) report.get("errors"),
+                (double) report.get("throughput"),
+                (double) latency.get("p50"),
+                (double) latency.get("p99"),
+                (double) latency.get("p999"));
+
+    }
+
+    private static final class NoPendingPaymentException extends RuntimeException {
+
+        NoPendingPaymentException() {
+            super(null, null, false, false);
+        }
+
+    }
+
+}
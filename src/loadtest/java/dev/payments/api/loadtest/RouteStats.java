@@ -0,0 +1,77 @@
+package dev.payments.api.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram (microseconds) and error count of one route.
+ */
+final class RouteStats {
+
+    private final Recorder recorder = new Recorder(3);
+
+    private final LongAdder errors = new LongAdder();
+
+    private Histogram histogram;
+
+    private long errorCount;
+
+    void record(long latencyNanos, boolean success) {
+
+        recorder.recordValue(Math.max(1, latencyNanos / 1_000));
+
+        if (!success) {
+            errors.increment();
+        }
+
+    }
+
+    // Drops everything recorded so far, e.g. at the end of the warmup.
+    void reset() {
+        recorder.getIntervalHistogram();
+        errors.reset();
+    }
+
+    void stop() {
+        histogram = recorder.getIntervalHistogram();
+        errorCount = errors.sum();
+    }
+
+    Histogram histogram() {
+        return histogram;
+    }
+
+    Map<String, Object> toReport(double seconds) {
+        return toReport(histogram, errorCount, seconds);
+    }
+
+    static Map<String, Object> toReport(Histogram histogram, long errorCount, double seconds) {
+
+        long requests = histogram.getTotalCount();
+
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("p50", millis(histogram.getValueAtPercentile(50)));
+        latency.put("p99", millis(histogram.getValueAtPercentile(99)));
+        latency.put("p999", millis(histogram.getValueAtPercentile(99.9)));
+        latency.put("max", millis(histogram.getMaxValue()));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("requests", requests);
+        report.put("errors", errorCount);
+        report.put("errorRate", requests == 0 ? 0.0 : (double) errorCount / requests);
+        report.put("throughput", requests / seconds);
+        report.put("latencyMs", latency);
+
+        return report;
+
+    }
+
+    private static double millis(long micros) {
+        return micros / 1_000.0;
+    }
+
+}
@@ -0,0 +1,67 @@
+package dev.payments.api.domain.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * A payment moved out of the payments table once it became final, either cancelled or
+ * in a status with no way out. Rows are copied as they were and never change again.
+ */
+@Table(
+        name = "payments_archive",
+        indexes = {
+                @Index(name = "idx_payments_archive_created_at_id", columnList = "created_at, id"),
+                @Index(name = "idx_payments_archive_user_created", columnList = "user_identification, created_at"),
+                @Index(name = "idx_payments_archive_debit_code", columnList = "debit_code")
+        }
+)
+@Entity(name = "ArchivedPayment")
+@Getter
+@NoArgsConstructor
+public class ArchivedPayment {
+
+    @Id
+    private UUID id;
+
+    @Column(name = "debit_code", nullable = false)
+    private Long debitCode;
+
+    @Column(name = "user_identification", nullable = false)
+    private String userIdentification;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private PaymentMethod method;
+
+    @Enumerated(EnumType.STRING)
+    private PaymentStatus status;
+
+    @Column(name = "card_number")
+    private String cardNumber;
+
+    @Column(name = "payment_value")
+    private BigDecimal paymentValue;
+
+    @Column(name = "is_cancelled", nullable = false)
+    private boolean isCancelled;
+
+    private Long version;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "created_at")
+    private Date createdAt;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "updated_at")
+    private Date updatedAt;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "archived_at", nullable = false)
+    private Date archivedAt;
+
+}
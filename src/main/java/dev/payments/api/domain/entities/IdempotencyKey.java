@@ -0,0 +1,50 @@
+package dev.payments.api.domain.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.springframework.data.domain.Persistable;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * An idempotency key as sent by one user, with a hash of the request it was first used
+ * for, so the same key from another user or with another payload is not mistaken for a
+ * retry.
+ */
+@Table(name = "idempotency_keys", indexes = @Index(name = "idx_idempotency_keys_created", columnList = "created_at"))
+@Entity(name = "IdempotencyKey")
+@Getter
+@NoArgsConstructor
+@EqualsAndHashCode(of = "id")
+public class IdempotencyKey implements Persistable<IdempotencyKeyId> {
+
+    @EmbeddedId
+    private IdempotencyKeyId id;
+
+    @Column(name = "request_hash", length = 64, nullable = false)
+    private String requestHash;
+
+    @Column(name = "payment_id", nullable = false)
+    private UUID paymentId;
+
+    @CreationTimestamp
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "created_at")
+    private Date createdAt;
+
+    public IdempotencyKey(IdempotencyKeyId id, String requestHash, UUID paymentId) {
+        this.id = id;
+        this.requestHash = requestHash;
+        this.paymentId = paymentId;
+    }
+
+    // Keys are only ever inserted; a duplicate must fail on the primary key instead of
+    // being merged over the stored one.
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+
+}
@@ -0,0 +1,23 @@
+package dev.payments.api.domain.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyKeyId implements Serializable {
+
+    @Column(name = "user_identification", nullable = false)
+    private String userIdentification;
+
+    @Column(name = "idempotency_key", length = 255, nullable = false)
+    private String key;
+
+}
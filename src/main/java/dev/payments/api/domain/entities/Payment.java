@@ -1,5 +1,6 @@
 package dev.payments.api.domain.entities;
 
+import dev.payments.api.infrastructure.hibernate.TimeOrderedUuid;
 import dev.payments.api.presentation.dtos.CreatePaymentDto;
 import jakarta.persistence.*;
 import lombok.*;
@@ -11,7 +12,15 @@ import java.util.Date;
 import java.util.UUID;
 
 
-@Table(name = "payments")
+@Table(
+        name = "payments",
+        indexes = {
+                @Index(name = "idx_payments_created_at_id", columnList = "created_at, id"),
+                @Index(name = "idx_payments_user_cancelled_created", columnList = "user_identification, is_cancelled, created_at"),
+                @Index(name = "idx_payments_status_cancelled_created", columnList = "status, is_cancelled, created_at, id"),
+                @Index(name = "idx_payments_debit_code", columnList = "debit_code")
+        }
+)
 @Entity(name = "Payment")
 @Data
 @NoArgsConstructor
@@ -20,7 +29,7 @@ import java.util.UUID;
 public class Payment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @TimeOrderedUuid
     private UUID id;
 
     @Column(name = "debit_code", nullable = false)
@@ -42,8 +51,12 @@ public class Payment {
     @Column(name = "payment_value")
     private BigDecimal paymentValue;
 
+    @Column(name = "is_cancelled", nullable = false)
     private boolean isCancelled = false;
 
+    @Version
+    private Long version;
+
     @CreationTimestamp
     @Temporal(TemporalType.TIMESTAMP)
     @Column(name = "created_at")
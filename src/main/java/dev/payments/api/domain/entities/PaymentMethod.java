@@ -1,8 +1,18 @@
 package dev.payments.api.domain.entities;
 
 public enum PaymentMethod {
-    BILLET,
-    PIX,
-    CREDIT_CARD,
-    DEBIT_CARD
+    BILLET(false),
+    PIX(false),
+    CREDIT_CARD(true),
+    DEBIT_CARD(true);
+
+    private final boolean usesCard;
+
+    PaymentMethod(boolean usesCard) {
+        this.usesCard = usesCard;
+    }
+
+    public boolean usesCard() {
+        return usesCard;
+    }
 }
@@ -0,0 +1,48 @@
+package dev.payments.api.domain.entities;
+
+import dev.payments.api.domain.events.PaymentChangeType;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A payment change waiting to be relayed downstream, written in the transaction of the
+ * change itself. Ids come from a pooled sequence, so inserting them costs no extra round
+ * trip and they grow in the order the changes were made on this instance.
+ */
+@Table(name = "payment_outbox")
+@Entity(name = "PaymentOutboxEvent")
+@Getter
+@NoArgsConstructor
+public class PaymentOutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payment_outbox_seq")
+    @SequenceGenerator(name = "payment_outbox_seq", sequenceName = "payment_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "payment_id", nullable = false)
+    private UUID paymentId;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private PaymentChangeType type;
+
+    @Lob
+    @Column(nullable = false)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public PaymentOutboxEvent(UUID paymentId, PaymentChangeType type, String payload, Instant createdAt) {
+        this.paymentId = paymentId;
+        this.type = type;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+
+}
@@ -0,0 +1,69 @@
+package dev.payments.api.domain.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Subselect;
+import org.hibernate.annotations.Synchronize;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Read-only view over the payments table and its archive, with the same attribute names
+ * as {@link Payment}, so the listing specifications and sorts apply to either. Only
+ * listings that ask for archived payments read it.
+ */
+@Entity(name = "PaymentRecord")
+@Immutable
+@Subselect("""
+        SELECT id, debit_code, user_identification, method, status, card_number, payment_value,
+               is_cancelled, version, created_at, updated_at
+        FROM payments
+        UNION ALL
+        SELECT id, debit_code, user_identification, method, status, card_number, payment_value,
+               is_cancelled, version, created_at, updated_at
+        FROM payments_archive
+        """)
+@Synchronize({"payments", "payments_archive"})
+@Getter
+@NoArgsConstructor
+public class PaymentRecord {
+
+    @Id
+    private UUID id;
+
+    @Column(name = "debit_code")
+    private Long debitCode;
+
+    @Column(name = "user_identification")
+    private String userIdentification;
+
+    @Enumerated(EnumType.STRING)
+    private PaymentMethod method;
+
+    @Enumerated(EnumType.STRING)
+    private PaymentStatus status;
+
+    @Column(name = "card_number")
+    private String cardNumber;
+
+    @Column(name = "payment_value")
+    private BigDecimal paymentValue;
+
+    @Column(name = "is_cancelled")
+    private boolean isCancelled;
+
+    private Long version;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "created_at")
+    private Date createdAt;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "updated_at")
+    private Date updatedAt;
+
+}
@@ -0,0 +1,29 @@
+package dev.payments.api.domain.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Count and total value of the non-cancelled payments of one user in one status and
+ * method. Rows are only changed by increments from the writes that affect them, or
+ * recomputed as a whole by a rebuild.
+ */
+@Table(name = "payment_summaries")
+@Entity(name = "PaymentSummary")
+@Getter
+@NoArgsConstructor
+public class PaymentSummary {
+
+    @EmbeddedId
+    private PaymentSummaryId id;
+
+    @Column(name = "payment_count", nullable = false)
+    private long paymentCount;
+
+    @Column(name = "total_value", nullable = false)
+    private BigDecimal totalValue;
+
+}
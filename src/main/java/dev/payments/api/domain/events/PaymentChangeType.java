@@ -0,0 +1,7 @@
+package dev.payments.api.domain.events;
+
+public enum PaymentChangeType {
+    CREATED,
+    STATUS_CHANGED,
+    CANCELLED
+}
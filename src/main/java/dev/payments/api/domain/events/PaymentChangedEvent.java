@@ -0,0 +1,99 @@
+package dev.payments.api.domain.events;
+
+import dev.payments.api.domain.entities.Payment;
+import dev.payments.api.domain.entities.PaymentMethod;
+import dev.payments.api.domain.entities.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Published by the payment service inside the transaction of every payment write,
+ * so synchronous listeners take part in that transaction and transactional listeners
+ * can act once it commits.
+ *
+ * @param previousStatus status before the change, {@code null} for {@link PaymentChangeType#CREATED}
+ * @param status         status after the change; for a cancellation, the status it was cancelled in
+ */
+public record PaymentChangedEvent(
+        PaymentChangeType type,
+        UUID paymentId,
+        Long debitCode,
+        String userIdentification,
+        PaymentMethod method,
+        BigDecimal value,
+        PaymentStatus previousStatus,
+        PaymentStatus status,
+        Instant occurredAt
+) {
+
+    public static PaymentChangedEvent created(Payment payment) {
+        return new PaymentChangedEvent(
+                PaymentChangeType.CREATED,
+                payment.getId(),
+                payment.getDebitCode(),
+                payment.getUserIdentification(),
+                payment.getMethod(),
+                payment.getPaymentValue(),
+                null,
+                payment.getStatus(),
+                Instant.now()
+        );
+    }
+
+    public static PaymentChangedEvent statusChanged(
+            UUID paymentId,
+            Long debitCode,
+            String userIdentification,
+            PaymentMethod method,
+            BigDecimal value,
+            PaymentStatus previousStatus,
+            PaymentStatus status
+    ) {
+        return new PaymentChangedEvent(
+                PaymentChangeType.STATUS_CHANGED,
+                paymentId,
+                debitCode,
+                userIdentification,
+                method,
+                value,
+                previousStatus,
+                status,
+                Instant.now()
+        );
+    }
+
+    public static PaymentChangedEvent cancelled(Payment payment) {
+        return cancelled(
+                payment.getId(),
+                payment.getDebitCode(),
+                payment.getUserIdentification(),
+                payment.getMethod(),
+                payment.getPaymentValue(),
+                payment.getStatus()
+        );
+    }
+
+    public static PaymentChangedEvent cancelled(
+            UUID paymentId,
+            Long debitCode,
+            String userIdentification,
+            PaymentMethod method,
+            BigDecimal value,
+            PaymentStatus status
+    ) {
+        return new PaymentChangedEvent(
+                PaymentChangeType.CANCELLED,
+                paymentId,
+                debitCode,
+                userIdentification,
+                method,
+                value,
+                status,
+                status,
+                Instant.now()
+        );
+    }
+
+}
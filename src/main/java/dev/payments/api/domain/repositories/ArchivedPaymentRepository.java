@@ -0,0 +1,27 @@
+package dev.payments.api.domain.repositories;
+
+import dev.payments.api.domain.entities.ArchivedPayment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.UUID;
+
+public interface ArchivedPaymentRepository extends JpaRepository<ArchivedPayment, UUID> {
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO payments_archive (
+                id, debit_code, user_identification, method, status, card_number, payment_value,
+                is_cancelled, version, created_at, updated_at, archived_at
+            )
+            SELECT id, debit_code, user_identification, method, status, card_number, payment_value,
+                   is_cancelled, version, created_at, updated_at, CURRENT_TIMESTAMP
+            FROM payments
+            WHERE id IN :ids
+            """, nativeQuery = true)
+    int copyFromPayments(@Param("ids") Collection<UUID> ids);
+
+}
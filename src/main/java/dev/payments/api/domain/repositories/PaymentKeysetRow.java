@@ -0,0 +1,11 @@
+package dev.payments.api.domain.repositories;
+
+import dev.payments.api.presentation.dtos.PaymentDto;
+
+import java.util.Date;
+
+public record PaymentKeysetRow(
+        PaymentDto payment,
+        Date createdAt
+) {
+}
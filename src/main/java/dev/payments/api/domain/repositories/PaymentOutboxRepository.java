@@ -0,0 +1,13 @@
+package dev.payments.api.domain.repositories;
+
+import dev.payments.api.domain.entities.PaymentOutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface PaymentOutboxRepository extends JpaRepository<PaymentOutboxEvent, Long> {
+
+    List<PaymentOutboxEvent> findByOrderByIdAsc(Pageable pageable);
+
+}
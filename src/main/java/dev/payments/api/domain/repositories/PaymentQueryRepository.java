@@ -0,0 +1,45 @@
+package dev.payments.api.domain.repositories;
+
+import dev.payments.api.domain.entities.Payment;
+import dev.payments.api.domain.entities.PaymentRecord;
+import dev.payments.api.presentation.dtos.PaymentDto;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Read-only listing queries that select the {@link PaymentDto} columns directly,
+ * so no {@link Payment} entity is hydrated or tracked by the persistence context.
+ * <p>
+ * The source is {@link Payment} for the hot table alone, or {@link PaymentRecord} to
+ * include the archive as well.
+ * <p>
+ * {@link #findPaymentDtosWithSortKeys} also returns the values each row was sorted by,
+ * ending with the id, so pages read from several shards can be merged in the same order.
+ */
+public interface PaymentQueryRepository {
+
+    <T> Page<PaymentDto> findPaymentDtos(Class<T> source, Specification<T> specification, Pageable pageable);
+
+    <T> Page<PaymentSortKeyRow> findPaymentDtosWithSortKeys(
+            Class<T> source,
+            Specification<T> specification,
+            Pageable pageable
+    );
+
+    <T> List<PaymentKeysetRow> findPaymentDtosAfter(
+            Class<T> source,
+            Specification<T> specification,
+            Date createdAt,
+            UUID id,
+            int limit
+    );
+
+    <T> void forEachPaymentDto(Class<T> source, Specification<T> specification, Consumer<PaymentDto> consumer);
+
+}
@@ -0,0 +1,224 @@
+package dev.payments.api.domain.repositories;
+
+import dev.payments.api.domain.entities.PaymentMethod;
+import dev.payments.api.domain.entities.PaymentStatus;
+import dev.payments.api.presentation.dtos.PaymentDto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.FlushModeType;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CompoundSelection;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+@Transactional(readOnly = true)
+public class PaymentQueryRepositoryImpl implements PaymentQueryRepository {
+
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public <T> Page<PaymentDto> findPaymentDtos(Class<T> source, Specification<T> specification, Pageable pageable) {
+
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<PaymentDto> query = builder.createQuery(PaymentDto.class);
+        Root<T> root = query.from(source);
+
+        query.select(paymentDtoSelection(root, builder));
+        query.where(specification.toPredicate(root, query, builder));
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, builder));
+
+        var typedQuery = entityManager.createQuery(query).setFlushMode(FlushModeType.COMMIT);
+
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+
+        List<PaymentDto> content = typedQuery.getResultList();
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(source, specification));
+
+    }
+
+    @Override
+    public <T> Page<PaymentSortKeyRow> findPaymentDtosWithSortKeys(
+            Class<T> source,
+            Specification<T> specification,
+            Pageable pageable
+    ) {
+
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<T> root = query.from(source);
+
+        // The id breaks ties, so every shard returns its rows in one total order.
+        Sort sort = pageable.getSort().getOrderFor("id") == null
+                ? pageable.getSort().and(Sort.by("id"))
+                : pageable.getSort();
+        List<Order> orders = QueryUtils.toOrders(sort, root, builder);
+
+        List<Selection<?>> selections = new ArrayList<>(paymentDtoSelection(root, builder).getCompoundSelectionItems());
+        orders.forEach(order -> selections.add(order.getExpression()));
+
+        query.multiselect(selections);
+        query.where(specification.toPredicate(root, query, builder));
+        query.orderBy(orders);
+
+        var typedQuery = entityManager.createQuery(query).setFlushMode(FlushModeType.COMMIT);
+
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+
+        List<PaymentSortKeyRow> content = typedQuery.getResultList()
+                .stream()
+                .map(tuple -> {
+                    Object[] values = tuple.toArray();
+                    return new PaymentSortKeyRow(paymentDto(tuple), Arrays.asList(values).subList(6, values.length));
+                })
+                .toList();
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(source, specification));
+
+    }
+
+    @Override
+    public <T> List<PaymentKeysetRow> findPaymentDtosAfter(
+            Class<T> source,
+            Specification<T> specification,
+            Date createdAt,
+            UUID id,
+            int limit
+    ) {
+
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<T> root = query.from(source);
+
+        Path<Date> createdAtPath = root.get("createdAt");
+        Path<UUID> idPath = root.get("id");
+
+        query.multiselect(
+                idPath,
+                root.get("debitCode"),
+                root.get("userIdentification"),
+                root.get("method"),
+                root.get("status"),
+                root.get("paymentValue"),
+                createdAtPath
+        );
+
+        Predicate predicate = specification.toPredicate(root, query, builder);
+
+        if (createdAt != null) {
+            Predicate seek = builder.or(
+                    builder.greaterThan(createdAtPath, createdAt),
+                    builder.and(builder.equal(createdAtPath, createdAt), builder.greaterThan(idPath, id))
+            );
+            predicate = builder.and(predicate, seek);
+        }
+
+        query.where(predicate);
+        query.orderBy(builder.asc(createdAtPath), builder.asc(idPath));
+
+        return entityManager.createQuery(query)
+                .setFlushMode(FlushModeType.COMMIT)
+                .setMaxResults(limit)
+                .getResultList()
+                .stream()
+                .map(tuple -> new PaymentKeysetRow(paymentDto(tuple), tuple.get(6, Date.class)))
+                .toList();
+
+    }
+
+    @Override
+    public <T> void forEachPaymentDto(Class<T> source, Specification<T> specification, Consumer<PaymentDto> consumer) {
+
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<PaymentDto> query = builder.createQuery(PaymentDto.class);
+        Root<T> root = query.from(source);
+
+        query.select(paymentDtoSelection(root, builder));
+        query.where(specification.toPredicate(root, query, builder));
+        query.orderBy(builder.asc(root.get("createdAt")), builder.asc(root.get("id")));
+
+        // A forward-only cursor with a fixed fetch size; rows are constructed as DTOs, so
+        // nothing accumulates in the persistence context while the stream is consumed.
+        try (Stream<PaymentDto> payments = entityManager.createQuery(query)
+                .setFlushMode(FlushModeType.COMMIT)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            payments.forEach(consumer);
+        }
+
+    }
+
+    private <T> long count(Class<T> source, Specification<T> specification) {
+
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<Long> query = builder.createQuery(Long.class);
+        Root<T> root = query.from(source);
+
+        query.select(builder.count(root));
+        query.where(specification.toPredicate(root, query, builder));
+
+        return entityManager.createQuery(query).setFlushMode(FlushModeType.COMMIT).getSingleResult();
+
+    }
+
+    private static PaymentDto paymentDto(Tuple tuple) {
+        return new PaymentDto(
+                tuple.get(0, UUID.class),
+                tuple.get(1, Long.class),
+                tuple.get(2, String.class),
+                tuple.get(3, PaymentMethod.class),
+                tuple.get(4, PaymentStatus.class),
+                tuple.get(5, BigDecimal.class)
+        );
+    }
+
+    private static CompoundSelection<PaymentDto> paymentDtoSelection(Root<?> root, CriteriaBuilder builder) {
+        return builder.construct(
+                PaymentDto.class,
+                root.get("id"),
+                root.get("debitCode"),
+                root.get("userIdentification"),
+                root.get("method"),
+                root.get("status"),
+                root.get("paymentValue")
+        );
+    }
+
+}
@@ -1,9 +1,169 @@
 package dev.payments.api.domain.repositories;
 
 import dev.payments.api.domain.entities.Payment;
+import dev.payments.api.domain.entities.PaymentStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
-public interface PaymentRepository extends JpaRepository<Payment, UUID> {
+public interface PaymentRepository extends
+        JpaRepository<Payment, UUID>,
+        JpaSpecificationExecutor<Payment>,
+        PaymentQueryRepository {
+
+    @Query("""
+            SELECT p.id AS id, p.status AS status, p.isCancelled AS cancelled,
+                   p.debitCode AS debitCode, p.userIdentification AS userIdentification,
+                   p.method AS method, p.paymentValue AS paymentValue, p.version AS version
+            FROM Payment p
+            WHERE p.id IN :ids
+            """)
+    List<PaymentStatusView> findStatusesByIdIn(@Param("ids") Collection<UUID> ids);
+
+    // Seeks idx_payments_status_cancelled_created from the (createdAt, id) watermark, so
+    // each call only reads the rows it returns.
+    @Query("""
+            SELECT p.id AS id, p.version AS version, p.status AS status,
+                   p.debitCode AS debitCode, p.userIdentification AS userIdentification,
+                   p.method AS method, p.paymentValue AS paymentValue, p.createdAt AS createdAt
+            FROM Payment p
+            WHERE p.status = :status AND p.isCancelled = false AND p.createdAt < :cutoff
+              AND (p.createdAt > :afterCreatedAt OR (p.createdAt = :afterCreatedAt AND p.id > :afterId))
+            ORDER BY p.createdAt, p.id
+            """)
+    List<StalePaymentView> findStalePayments(
+            @Param("status") PaymentStatus status,
+            @Param("cutoff") Date cutoff,
+            @Param("afterCreatedAt") Date afterCreatedAt,
+            @Param("afterId") UUID afterId,
+            Pageable pageable
+    );
+
+    // Archivable rows are final, so once selected they can be copied and deleted without
+    // re-checking them. Rows leave the index range as they are archived, so no watermark
+    // is needed to make progress.
+    @Query("""
+            SELECT p.id
+            FROM Payment p
+            WHERE p.status IN :statuses AND p.isCancelled = :cancelled AND p.createdAt < :cutoff
+            ORDER BY p.createdAt, p.id
+            """)
+    List<UUID> findArchivableIds(
+            @Param("statuses") Collection<PaymentStatus> statuses,
+            @Param("cancelled") boolean cancelled,
+            @Param("cutoff") Date cutoff,
+            Pageable pageable
+    );
+
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE Payment p
+            SET p.status = :status, p.version = p.version + 1, p.updatedAt = CURRENT_TIMESTAMP
+            WHERE p.id IN :ids AND p.status IN :expectedStatuses AND p.isCancelled = false
+            """)
+    int updateStatusByIdIn(
+            @Param("ids") Collection<UUID> ids,
+            @Param("expectedStatuses") Collection<PaymentStatus> expectedStatuses,
+            @Param("status") PaymentStatus status
+    );
+
+    @Modifying
+    @Query("""
+            UPDATE Payment p
+            SET p.status = :status, p.version = p.version + 1, p.updatedAt = CURRENT_TIMESTAMP
+            WHERE p.id = :id AND p.version = :version AND p.status IN :expectedStatuses AND p.isCancelled = false
+            """)
+    int updateStatus(
+            @Param("id") UUID id,
+            @Param("version") Long version,
+            @Param("expectedStatuses") Collection<PaymentStatus> expectedStatuses,
+            @Param("status") PaymentStatus status
+    );
+
+    @Modifying
+    @Query("""
+            UPDATE Payment p
+            SET p.isCancelled = true, p.version = p.version + 1, p.updatedAt = CURRENT_TIMESTAMP
+            WHERE p.id = :id AND p.version = :version AND p.status IN :expectedStatuses AND p.isCancelled = false
+            """)
+    int cancel(
+            @Param("id") UUID id,
+            @Param("version") Long version,
+            @Param("expectedStatuses") Collection<PaymentStatus> expectedStatuses
+    );
+
+    // H2 returns the rows as they were before the UPDATE, so one statement both applies the
+    // guarded change and yields the previous status and the fields of the response. Empty
+    // when the row is missing, cancelled or not in one of the expected statuses.
+    @Transactional
+    @Query(nativeQuery = true, value = """
+            SELECT id AS id, status AS status, is_cancelled AS cancelled,
+                   debit_code AS debitCode, user_identification AS userIdentification,
+                   method AS method, payment_value AS paymentValue, version AS version
+            FROM OLD TABLE (
+                UPDATE payments
+                SET status = :status, version = version + 1, updated_at = CURRENT_TIMESTAMP
+                WHERE id = :id AND status IN (:expectedStatuses) AND is_cancelled = FALSE
+            )
+            """)
+    Optional<PaymentStatusView> updateStatusReturningPrevious(
+            @Param("id") UUID id,
+            @Param("expectedStatuses") Collection<String> expectedStatuses,
+            @Param("status") String status
+    );
+
+    default Optional<PaymentStatusView> updateStatusReturningPrevious(
+            UUID id,
+            List<PaymentStatus> expectedStatuses,
+            PaymentStatus status
+    ) {
+        return updateStatusReturningPrevious(id, names(expectedStatuses), status.name());
+    }
+
+    @Transactional
+    @Query(nativeQuery = true, value = """
+            SELECT id AS id, status AS status, is_cancelled AS cancelled,
+                   debit_code AS debitCode, user_identification AS userIdentification,
+                   method AS method, payment_value AS paymentValue, version AS version
+            FROM OLD TABLE (
+                UPDATE payments
+                SET is_cancelled = TRUE, version = version + 1, updated_at = CURRENT_TIMESTAMP
+                WHERE id = :id AND status IN (:expectedStatuses) AND is_cancelled = FALSE
+            )
+            """)
+    Optional<PaymentStatusView> cancelReturningPrevious(
+            @Param("id") UUID id,
+            @Param("expectedStatuses") Collection<String> expectedStatuses
+    );
+
+    default Optional<PaymentStatusView> cancelReturningPrevious(UUID id, List<PaymentStatus> expectedStatuses) {
+        return cancelReturningPrevious(id, names(expectedStatuses));
+    }
+
+    @Modifying
+    @Query("""
+            UPDATE Payment p
+            SET p.isCancelled = true, p.version = p.version + 1, p.updatedAt = CURRENT_TIMESTAMP
+            WHERE p.id IN :ids AND p.status IN :expectedStatuses AND p.isCancelled = false
+            """)
+    int cancelByIdIn(
+            @Param("ids") Collection<UUID> ids,
+            @Param("expectedStatuses") Collection<PaymentStatus> expectedStatuses
+    );
+
+    private static List<String> names(List<PaymentStatus> statuses) {
+        return statuses.stream().map(PaymentStatus::name).toList();
+    }
+
 }
@@ -0,0 +1,11 @@
+package dev.payments.api.domain.repositories;
+
+import dev.payments.api.presentation.dtos.PaymentDto;
+
+import java.util.List;
+
+public record PaymentSortKeyRow(
+        PaymentDto payment,
+        List<Object> sortKeys
+) {
+}
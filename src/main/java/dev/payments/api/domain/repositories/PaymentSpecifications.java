@@ -0,0 +1,88 @@
+package dev.payments.api.domain.repositories;
+
+import dev.payments.api.domain.entities.Payment;
+import dev.payments.api.domain.entities.PaymentRecord;
+import dev.payments.api.domain.entities.PaymentStatus;
+import dev.payments.api.presentation.dtos.PaymentFilterDto;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Builds listing predicates in the column order of the composite indexes declared on
+ * {@link Payment}: equality on the leading columns first, then the created_at range.
+ * Predicates only use attribute names, so they apply to {@link PaymentRecord} as well.
+ */
+public final class PaymentSpecifications {
+
+    private PaymentSpecifications() {
+    }
+
+    public static <T> Specification<T> matching(PaymentFilterDto filter) {
+        return (root, query, builder) -> {
+
+            List<Predicate> predicates = new ArrayList<>();
+
+            if (filter.userIdentification() != null) {
+                predicates.add(builder.equal(root.get("userIdentification"), filter.userIdentification()));
+            }
+
+            if (filter.debitCode() != null) {
+                predicates.add(builder.equal(root.get("debitCode"), filter.debitCode()));
+            }
+
+            EnumSet<PaymentStatus> statuses = statuses(filter.statuses());
+
+            if (statuses.size() == 1) {
+                predicates.add(builder.equal(root.get("status"), statuses.iterator().next()));
+            } else if (!statuses.isEmpty() && statuses.size() < PaymentStatus.values().length) {
+                predicates.add(root.get("status").in(statuses));
+            }
+
+            predicates.add(builder.isFalse(root.get("isCancelled")));
+
+            if (filter.createdFrom() != null) {
+                predicates.add(builder.greaterThanOrEqualTo(root.<Date>get("createdAt"), toTimestamp(filter.createdFrom())));
+            }
+
+            if (filter.createdTo() != null) {
+                predicates.add(builder.lessThan(root.<Date>get("createdAt"), toTimestamp(filter.createdTo())));
+            }
+
+            if (filter.minValue() != null) {
+                predicates.add(builder.greaterThanOrEqualTo(root.<BigDecimal>get("paymentValue"), filter.minValue()));
+            }
+
+            if (filter.maxValue() != null) {
+                predicates.add(builder.lessThanOrEqualTo(root.<BigDecimal>get("paymentValue"), filter.maxValue()));
+            }
+
+            return builder.and(predicates.toArray(Predicate[]::new));
+
+        };
+    }
+
+    private static EnumSet<PaymentStatus> statuses(List<PaymentStatus> statuses) {
+
+        EnumSet<PaymentStatus> result = EnumSet.noneOf(PaymentStatus.class);
+
+        if (statuses != null) {
+            statuses.stream().filter(status -> status != null).forEach(result::add);
+        }
+
+        return result;
+
+    }
+
+    private static Date toTimestamp(Instant instant) {
+        return Timestamp.from(instant);
+    }
+
+}
@@ -0,0 +1,27 @@
+package dev.payments.api.domain.repositories;
+
+import dev.payments.api.domain.entities.PaymentMethod;
+import dev.payments.api.domain.entities.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public interface PaymentStatusView {
+
+    UUID getId();
+
+    PaymentStatus getStatus();
+
+    boolean getCancelled();
+
+    Long getDebitCode();
+
+    String getUserIdentification();
+
+    PaymentMethod getMethod();
+
+    BigDecimal getPaymentValue();
+
+    Long getVersion();
+
+}
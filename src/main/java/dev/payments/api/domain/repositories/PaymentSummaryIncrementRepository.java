@@ -0,0 +1,15 @@
+package dev.payments.api.domain.repositories;
+
+import dev.payments.api.domain.entities.PaymentSummaryId;
+
+import java.math.BigDecimal;
+
+public interface PaymentSummaryIncrementRepository {
+
+    /**
+     * Adds to the summary row of {@code id} inside the current transaction, creating the
+     * row if it does not exist yet.
+     */
+    void increment(PaymentSummaryId id, long count, BigDecimal value);
+
+}
@@ -0,0 +1,90 @@
+package dev.payments.api.domain.repositories;
+
+import dev.payments.api.domain.entities.PaymentSummaryId;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
+/**
+ * Runs on the transaction's own JDBC connection. A missing row is inserted behind a
+ * savepoint: when a concurrent transaction inserted the same key first, the insert fails
+ * once that transaction commits, the savepoint is rolled back and the increment is
+ * retried against the committed row, without failing the surrounding transaction.
+ */
+@Transactional(propagation = Propagation.MANDATORY)
+public class PaymentSummaryIncrementRepositoryImpl implements PaymentSummaryIncrementRepository {
+
+    private static final String UPDATE_SQL = """
+            UPDATE payment_summaries
+            SET payment_count = payment_count + ?, total_value = total_value + ?
+            WHERE user_identification = ? AND status = ? AND method = ?
+            """;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO payment_summaries (user_identification, status, method, payment_count, total_value)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+
+    // SQL:2003 class 23, integrity constraint violation.
+    private static final String INTEGRITY_VIOLATION_CLASS = "23";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void increment(PaymentSummaryId id, long count, BigDecimal value) {
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            if (update(connection, id, count, value) == 0 && !insert(connection, id, count, value)) {
+                update(connection, id, count, value);
+            }
+        });
+    }
+
+    private static int update(Connection connection, PaymentSummaryId id, long count, BigDecimal value)
+            throws SQLException {
+
+        try (PreparedStatement statement = connection.prepareStatement(UPDATE_SQL)) {
+            statement.setLong(1, count);
+            statement.setBigDecimal(2, value);
+            statement.setString(3, id.getUserIdentification());
+            statement.setString(4, id.getStatus().name());
+            statement.setString(5, id.getMethod().name());
+            return statement.executeUpdate();
+        }
+
+    }
+
+    private static boolean insert(Connection connection, PaymentSummaryId id, long count, BigDecimal value)
+            throws SQLException {
+
+        Savepoint savepoint = connection.setSavepoint();
+
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+            statement.setString(1, id.getUserIdentification());
+            statement.setString(2, id.getStatus().name());
+            statement.setString(3, id.getMethod().name());
+            statement.setLong(4, count);
+            statement.setBigDecimal(5, value);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            if (e.getSQLState() == null || !e.getSQLState().startsWith(INTEGRITY_VIOLATION_CLASS)) {
+                throw e;
+            }
+            connection.rollback(savepoint);
+            return false;
+        }
+
+        connection.releaseSavepoint(savepoint);
+        return true;
+
+    }
+
+}
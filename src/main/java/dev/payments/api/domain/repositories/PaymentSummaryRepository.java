@@ -0,0 +1,51 @@
+package dev.payments.api.domain.repositories;
+
+import dev.payments.api.domain.entities.PaymentSummary;
+import dev.payments.api.domain.entities.PaymentSummaryId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface PaymentSummaryRepository extends
+        JpaRepository<PaymentSummary, PaymentSummaryId>,
+        PaymentSummaryIncrementRepository {
+
+    @Query("""
+            SELECT s.id.status AS status, s.id.method AS method,
+                   s.paymentCount AS paymentCount, s.totalValue AS totalValue
+            FROM PaymentSummary s
+            WHERE s.id.userIdentification = :userIdentification
+            """)
+    List<PaymentTotalsView> findTotalsByUserIdentification(@Param("userIdentification") String userIdentification);
+
+    @Query("""
+            SELECT s.id.status AS status, s.id.method AS method,
+                   SUM(s.paymentCount) AS paymentCount, SUM(s.totalValue) AS totalValue
+            FROM PaymentSummary s
+            GROUP BY s.id.status, s.id.method
+            """)
+    List<PaymentTotalsView> findOverallTotals();
+
+    @Modifying
+    @Query(value = "DELETE FROM payment_summaries", nativeQuery = true)
+    void deleteAllRows();
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO payment_summaries (user_identification, status, method, payment_count, total_value)
+            SELECT user_identification, status, method, COUNT(*), COALESCE(SUM(payment_value), 0)
+            FROM (
+                SELECT user_identification, status, method, payment_value FROM payments
+                WHERE is_cancelled = false
+                UNION ALL
+                SELECT user_identification, status, method, payment_value FROM payments_archive
+                WHERE is_cancelled = false
+            ) AS all_payments
+            GROUP BY user_identification, status, method
+            """, nativeQuery = true)
+    int insertFromPayments();
+
+}
@@ -0,0 +1,18 @@
+package dev.payments.api.domain.repositories;
+
+import dev.payments.api.domain.entities.PaymentMethod;
+import dev.payments.api.domain.entities.PaymentStatus;
+
+import java.math.BigDecimal;
+
+public interface PaymentTotalsView {
+
+    PaymentStatus getStatus();
+
+    PaymentMethod getMethod();
+
+    long getPaymentCount();
+
+    BigDecimal getTotalValue();
+
+}
@@ -0,0 +1,28 @@
+package dev.payments.api.domain.repositories;
+
+import dev.payments.api.domain.entities.PaymentMethod;
+import dev.payments.api.domain.entities.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.UUID;
+
+public interface StalePaymentView {
+
+    UUID getId();
+
+    Long getVersion();
+
+    PaymentStatus getStatus();
+
+    Long getDebitCode();
+
+    String getUserIdentification();
+
+    PaymentMethod getMethod();
+
+    BigDecimal getPaymentValue();
+
+    Date getCreatedAt();
+
+}
@@ -0,0 +1,223 @@
+package dev.payments.api.domain.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.payments.api.domain.entities.IdempotencyKey;
+import dev.payments.api.domain.entities.IdempotencyKeyId;
+import dev.payments.api.domain.repositories.ArchivedPaymentRepository;
+import dev.payments.api.domain.repositories.IdempotencyKeyRepository;
+import dev.payments.api.domain.repositories.PaymentRepository;
+import dev.payments.api.infrastructure.sharding.PaymentShards;
+import dev.payments.api.presentation.dtos.CreatePaymentDto;
+import dev.payments.api.presentation.dtos.PaymentDto;
+import dev.payments.api.presentation.services.IdempotencyService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the response of each idempotent request in a bounded in-memory store, backed by
+ * the idempotency_keys table so keys survive restarts.
+ * <p>
+ * The store maps keys to futures: the first request for a key registers its future and
+ * runs the action, while concurrent duplicates wait on that future instead of running
+ * the action again.
+ * <p>
+ * Keys are scoped to the user of the request and remember a hash of its payload: reusing
+ * a key with a different payload is answered with 422 instead of the first payment. Keys
+ * are forgotten, in memory and in the table, once they are older than the TTL.
+ * <p>
+ * Keys are stored on the shard of the user the payment belongs to, so a key and its
+ * payment commit in the same transaction.
+ */
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private static final String KEY_REUSED_MESSAGE =
+            "A chave de idempotência já foi usada com outra requisição!";
+
+    private final Cache<IdempotencyKeyId, Response> responses;
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+
+    private final PaymentRepository paymentRepository;
+
+    private final ArchivedPaymentRepository archivedPaymentRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final PaymentShards paymentShards;
+
+    private final Duration ttl;
+
+    public IdempotencyServiceImpl(
+            IdempotencyKeyRepository idempotencyKeyRepository,
+            PaymentRepository paymentRepository,
+            ArchivedPaymentRepository archivedPaymentRepository,
+            PlatformTransactionManager transactionManager,
+            PaymentShards paymentShards,
+            @Value("${payments.idempotency.ttl:PT24H}") Duration ttl,
+            @Value("${payments.idempotency.max-size:100000}") long maxSize
+    ) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.paymentRepository = paymentRepository;
+        this.archivedPaymentRepository = archivedPaymentRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.paymentShards = paymentShards;
+        this.ttl = ttl;
+        this.responses = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    @Override
+    public PaymentDto execute(String idempotencyKey, CreatePaymentDto request, Supplier<PaymentDto> action) {
+
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "A chave de idempotência deve ter entre 1 e " + MAX_KEY_LENGTH + " caracteres!"
+            );
+        }
+
+        var id = new IdempotencyKeyId(request.userIdentification(), idempotencyKey);
+        String requestHash = requestHash(request);
+
+        Response response = new Response(requestHash, new CompletableFuture<>());
+        Response inFlightResponse = responses.asMap().putIfAbsent(id, response);
+
+        if (inFlightResponse != null) {
+            checkSameRequest(inFlightResponse.requestHash(), requestHash);
+            return await(inFlightResponse.payment());
+        }
+
+        try {
+            PaymentDto payment = paymentShards.callOn(
+                    paymentShards.shardOf(request.userIdentification()),
+                    () -> executeOnce(id, requestHash, action)
+            );
+            response.payment().complete(payment);
+            return payment;
+        } catch (RuntimeException e) {
+            responses.asMap().remove(id, response);
+            response.payment().completeExceptionally(e);
+            throw e;
+        }
+
+    }
+
+    @Scheduled(
+            initialDelayString = "${payments.idempotency.purge-interval:PT1H}",
+            fixedDelayString = "${payments.idempotency.purge-interval:PT1H}"
+    )
+    public void purgeExpiredKeys() {
+        Date cutoff = Date.from(Instant.now().minus(ttl));
+        paymentShards.forEachShard(shard -> transactionTemplate.executeWithoutResult(
+                status -> idempotencyKeyRepository.deleteCreatedBefore(cutoff)
+        ));
+    }
+
+    private PaymentDto executeOnce(IdempotencyKeyId id, String requestHash, Supplier<PaymentDto> action) {
+
+        try {
+            return transactionTemplate.execute(status -> {
+
+                Optional<PaymentDto> storedPayment = findStoredPayment(id, requestHash);
+
+                if (storedPayment.isPresent()) {
+                    return storedPayment.get();
+                }
+
+                PaymentDto payment = action.get();
+                idempotencyKeyRepository.saveAndFlush(new IdempotencyKey(id, requestHash, payment.id()));
+
+                return payment;
+
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Another instance stored the key first; its payment was committed and ours rolled back.
+            return transactionTemplate.execute(status -> findStoredPayment(id, requestHash)).orElseThrow(() -> e);
+        }
+
+    }
+
+    private Optional<PaymentDto> findStoredPayment(IdempotencyKeyId id, String requestHash) {
+        return idempotencyKeyRepository.findById(id)
+                .flatMap(storedKey -> {
+                    checkSameRequest(storedKey.getRequestHash(), requestHash);
+                    return findPayment(storedKey.getPaymentId());
+                });
+    }
+
+    // The payment may have been archived since the key was stored.
+    private Optional<PaymentDto> findPayment(UUID paymentId) {
+        return paymentRepository.findById(paymentId)
+                .map(PaymentDto::new)
+                .or(() -> archivedPaymentRepository.findById(paymentId).map(PaymentDto::new));
+    }
+
+    private static void checkSameRequest(String storedHash, String requestHash) {
+        if (!storedHash.equals(requestHash)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, KEY_REUSED_MESSAGE);
+        }
+    }
+
+    // The value is hashed by its numeric value, so 10 and 10.00 are the same request.
+    private static String requestHash(CreatePaymentDto request) {
+
+        String canonical = String.join("\0",
+                String.valueOf(request.debitCode()),
+                String.valueOf(request.userIdentification()),
+                String.valueOf(request.method()),
+                String.valueOf(request.cardNumber()),
+                request.paymentValue() == null ? "null" : request.paymentValue().stripTrailingZeros().toPlainString()
+        );
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+
+    }
+
+    private static PaymentDto await(CompletableFuture<PaymentDto> response) {
+        try {
+            return response.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        } catch (CancellationException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "A requisição original foi cancelada!");
+        }
+    }
+
+    private record Response(String requestHash, CompletableFuture<PaymentDto> payment) {
+    }
+
+}
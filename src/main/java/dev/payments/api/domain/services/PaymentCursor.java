@@ -0,0 +1,59 @@
+package dev.payments.api.domain.services;
+
+import dev.payments.api.domain.repositories.PaymentKeysetRow;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Opaque continuation token for keyset pagination over (createdAt, id).
+ * <p>
+ * The timestamp keeps its full database precision, otherwise rows created within
+ * the same millisecond as the last row of a page would be returned twice.
+ */
+record PaymentCursor(Instant createdAt, UUID id) {
+
+    private static final String VERSION = "v1";
+
+    static PaymentCursor of(PaymentKeysetRow row) {
+        Date createdAt = row.createdAt();
+        Instant instant = createdAt instanceof Timestamp timestamp ? timestamp.toInstant() : createdAt.toInstant();
+        return new PaymentCursor(instant, row.payment().id());
+    }
+
+    static PaymentCursor decode(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = decoded.split(":");
+
+            if (parts.length != 4 || !VERSION.equals(parts[0])) {
+                throw new IllegalArgumentException(decoded);
+            }
+
+            Instant createdAt = Instant.ofEpochSecond(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+            // Fails here rather than in createdAtTimestamp() for instants a Timestamp cannot hold.
+            createdAt.toEpochMilli();
+
+            return new PaymentCursor(createdAt, UUID.fromString(parts[3]));
+        } catch (IllegalArgumentException | DateTimeException | ArithmeticException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "O cursor informado é inválido!");
+        }
+    }
+
+    String encode() {
+        String raw = VERSION + ":" + createdAt.getEpochSecond() + ":" + createdAt.getNano() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    Date createdAtTimestamp() {
+        return Timestamp.from(createdAt);
+    }
+
+}
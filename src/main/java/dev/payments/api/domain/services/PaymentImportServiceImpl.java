@@ -0,0 +1,403 @@
+package dev.payments.api.domain.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import dev.payments.api.domain.entities.PaymentMethod;
+import dev.payments.api.infrastructure.csv.CsvRecords;
+import dev.payments.api.presentation.dtos.BatchPaymentResultDto;
+import dev.payments.api.presentation.dtos.CreatePaymentDto;
+import dev.payments.api.presentation.dtos.PaymentImportErrorDto;
+import dev.payments.api.presentation.dtos.PaymentImportFormat;
+import dev.payments.api.presentation.dtos.PaymentImportJobDto;
+import dev.payments.api.presentation.dtos.PaymentImportStatus;
+import dev.payments.api.presentation.services.PaymentImportService;
+import dev.payments.api.presentation.services.PaymentService;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Imports payments from NDJSON or CSV uploads.
+ * <p>
+ * The upload is parsed as it arrives on the request thread, which owns the body, while
+ * parsed records are handed to {@link PaymentService#createPayments} in chunks on background
+ * threads. Each chunk applies the same validation as POST /payments and is written as one
+ * batched transaction. Only a few chunks per job may wait to be written, so a slow database
+ * slows the upload down instead of piling records up in memory.
+ * <p>
+ * The job, and with it its id, is only returned once the whole body has been read; what
+ * may still be running then is the writing of its last chunks. A CSV header is checked
+ * before the job is created, so a file that cannot be imported at all is refused with
+ * 400 rather than reported as a failed job.
+ */
+@Service
+public class PaymentImportServiceImpl implements PaymentImportService {
+
+    private static final int CHUNK_SIZE = 500;
+
+    private static final int MAX_PENDING_CHUNKS = 4;
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private static final Duration FINISHED_JOB_RETENTION = Duration.ofHours(1);
+
+    private static final List<String> CSV_COLUMNS = List.of(
+            "debitCode", "userIdentification", "method", "paymentValue"
+    );
+
+    private static final String CSV_CARD_NUMBER_COLUMN = "cardNumber";
+
+    private final PaymentService paymentService;
+
+    private final ObjectReader createPaymentReader;
+
+    private final ExecutorService executor;
+
+    private final Map<UUID, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    public PaymentImportServiceImpl(
+            PaymentService paymentService,
+            ObjectMapper objectMapper,
+            @Value("${payments.import.threads:2}") int threads
+    ) {
+        this.paymentService = paymentService;
+        this.createPaymentReader = objectMapper.readerFor(CreatePaymentDto.class);
+        this.executor = Executors.newFixedThreadPool(threads);
+    }
+
+    @Override
+    public PaymentImportJobDto startImport(InputStream body, PaymentImportFormat format) {
+
+        // The body belongs to the container, so it is read but not closed here.
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+
+        CsvRecords records = format == PaymentImportFormat.CSV ? new CsvRecords(reader) : null;
+        CsvHeader header = records == null ? null : readCsvHeader(records);
+
+        ImportJob job = new ImportJob(UUID.randomUUID());
+        jobs.put(job.id, job);
+
+        ChunkWriter writer = new ChunkWriter(job);
+
+        try {
+            if (records != null) {
+                readCsv(records, header, job, writer);
+            } else {
+                readNdjson(reader, job, writer);
+            }
+
+            writer.flush();
+        } catch (IOException e) {
+            job.fail("Não foi possível ler o arquivo enviado!");
+        } catch (RuntimeException e) {
+            job.fail(e.getMessage());
+        } finally {
+            job.release();
+        }
+
+        return job.toDto();
+
+    }
+
+    @Override
+    public PaymentImportJobDto getImportJob(UUID jobId) {
+
+        ImportJob job = jobs.get(jobId);
+
+        if (job == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "A importação não foi encontrada!");
+        }
+
+        return job.toDto();
+
+    }
+
+    @Scheduled(fixedDelayString = "${payments.import.eviction-interval:PT5M}")
+    public void evictFinishedJobs() {
+        Instant threshold = Instant.now().minus(FINISHED_JOB_RETENTION);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(threshold));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void readNdjson(BufferedReader reader, ImportJob job, ChunkWriter writer) throws IOException {
+
+        long lineNumber = 0;
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+
+            lineNumber++;
+
+            if (line.isBlank()) {
+                continue;
+            }
+
+            try {
+                writer.add(lineNumber, createPaymentReader.readValue(line));
+            } catch (JsonProcessingException e) {
+                job.reject(lineNumber, "JSON inválido: " + e.getOriginalMessage());
+            }
+
+        }
+
+    }
+
+    /**
+     * @return the layout of the CSV columns, or null for an empty upload
+     * @throws ResponseStatusException with 400 if the header cannot be read or lacks a column
+     */
+    private static CsvHeader readCsvHeader(CsvRecords records) {
+
+        List<String> header;
+
+        try {
+            header = records.next();
+        } catch (IOException | IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Não foi possível ler o cabeçalho do CSV!");
+        }
+
+        if (header == null) {
+            return null;
+        }
+
+        List<String> columns = header.stream().map(String::trim).toList();
+
+        if (!columns.containsAll(CSV_COLUMNS)) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "O cabeçalho do CSV deve conter as colunas " + CSV_COLUMNS + "!"
+            );
+        }
+
+        // Other columns, such as the id and status of an export, are ignored.
+        return new CsvHeader(
+                columns.size(),
+                CSV_COLUMNS.stream().mapToInt(columns::indexOf).toArray(),
+                columns.indexOf(CSV_CARD_NUMBER_COLUMN)
+        );
+
+    }
+
+    private void readCsv(CsvRecords records, CsvHeader header, ImportJob job, ChunkWriter writer) throws IOException {
+
+        if (header == null) {
+            return;
+        }
+
+        int[] positions = header.positions();
+        int cardNumberPosition = header.cardNumberPosition();
+
+        List<String> values;
+
+        while ((values = records.next()) != null) {
+
+            long lineNumber = records.recordLine();
+
+            if (values.size() == 1 && values.get(0).isBlank()) {
+                continue;
+            }
+
+            if (values.size() != header.columnCount()) {
+                job.reject(lineNumber, "A linha deve conter " + header.columnCount() + " colunas!");
+                continue;
+            }
+
+            try {
+                writer.add(lineNumber, new CreatePaymentDto(
+                        Long.valueOf(values.get(positions[0]).trim()),
+                        emptyToNull(values.get(positions[1])),
+                        PaymentMethod.valueOf(values.get(positions[2]).trim()),
+                        cardNumberPosition < 0 ? null : emptyToNull(values.get(cardNumberPosition)),
+                        new BigDecimal(values.get(positions[3]).trim())
+                ));
+            } catch (IllegalArgumentException e) {
+                job.reject(lineNumber, "Valor inválido: " + e.getMessage());
+            }
+
+        }
+
+    }
+
+    private static String emptyToNull(String value) {
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private record CsvHeader(int columnCount, int[] positions, int cardNumberPosition) {
+    }
+
+    private final class ChunkWriter {
+
+        private final ImportJob job;
+
+        private final List<CreatePaymentDto> payments = new ArrayList<>(CHUNK_SIZE);
+
+        private final List<Long> lineNumbers = new ArrayList<>(CHUNK_SIZE);
+
+        private ChunkWriter(ImportJob job) {
+            this.job = job;
+        }
+
+        void add(long lineNumber, CreatePaymentDto payment) {
+
+            payments.add(payment);
+            lineNumbers.add(lineNumber);
+
+            if (payments.size() == CHUNK_SIZE) {
+                flush();
+            }
+
+        }
+
+        void flush() {
+
+            if (payments.isEmpty()) {
+                return;
+            }
+
+            List<CreatePaymentDto> chunk = List.copyOf(payments);
+            List<Long> chunkLineNumbers = List.copyOf(lineNumbers);
+
+            payments.clear();
+            lineNumbers.clear();
+
+            job.pendingChunks.acquireUninterruptibly();
+            job.retain();
+
+            try {
+                executor.execute(() -> write(chunk, chunkLineNumbers));
+            } catch (RejectedExecutionException e) {
+                job.pendingChunks.release();
+                job.release();
+                throw e;
+            }
+
+        }
+
+        private void write(List<CreatePaymentDto> chunk, List<Long> chunkLineNumbers) {
+
+            try {
+                List<BatchPaymentResultDto> results = paymentService.createPayments(chunk);
+
+                for (int i = 0; i < results.size(); i++) {
+                    if (results.get(i).error() != null) {
+                        job.reject(chunkLineNumbers.get(i), results.get(i).error());
+                    } else {
+                        job.importedPayments.incrementAndGet();
+                        job.processedLines.incrementAndGet();
+                    }
+                }
+            } catch (RuntimeException e) {
+                job.fail(e.getMessage());
+            } finally {
+                job.pendingChunks.release();
+                job.release();
+            }
+
+        }
+
+    }
+
+    private static final class ImportJob {
+
+        private final UUID id;
+
+        private final AtomicLong processedLines = new AtomicLong();
+
+        private final AtomicLong importedPayments = new AtomicLong();
+
+        private final AtomicLong failedLines = new AtomicLong();
+
+        private final List<PaymentImportErrorDto> errors = Collections.synchronizedList(new ArrayList<>());
+
+        private final Semaphore pendingChunks = new Semaphore(MAX_PENDING_CHUNKS);
+
+        // One reference for the parser plus one per chunk still being written.
+        private final AtomicInteger references = new AtomicInteger(1);
+
+        private volatile PaymentImportStatus status = PaymentImportStatus.RUNNING;
+
+        private volatile String failure;
+
+        private volatile Instant finishedAt;
+
+        private ImportJob(UUID id) {
+            this.id = id;
+        }
+
+        void retain() {
+            references.incrementAndGet();
+        }
+
+        void release() {
+            if (references.decrementAndGet() == 0) {
+                finishedAt = Instant.now();
+                status = failure == null ? PaymentImportStatus.COMPLETED : PaymentImportStatus.FAILED;
+            }
+        }
+
+        synchronized void fail(String message) {
+            if (failure == null) {
+                failure = message;
+            }
+        }
+
+        void reject(long lineNumber, String error) {
+
+            processedLines.incrementAndGet();
+            failedLines.incrementAndGet();
+
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new PaymentImportErrorDto(lineNumber, error));
+            }
+
+        }
+
+        PaymentImportJobDto toDto() {
+
+            List<PaymentImportErrorDto> reportedErrors;
+
+            synchronized (errors) {
+                reportedErrors = errors.stream().sorted(Comparator.comparingLong(PaymentImportErrorDto::line)).toList();
+            }
+
+            return new PaymentImportJobDto(
+                    id,
+                    status,
+                    processedLines.get(),
+                    importedPayments.get(),
+                    failedLines.get(),
+                    reportedErrors,
+                    failure
+            );
+
+        }
+
+    }
+
+}
@@ -1,161 +1,631 @@
 package dev.payments.api.domain.services;
 
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import dev.payments.api.presentation.dtos.BatchPaymentResultDto;
 import dev.payments.api.presentation.dtos.CreatePaymentDto;
 import dev.payments.api.presentation.dtos.PaymentDto;
+import dev.payments.api.presentation.dtos.PaymentFilterDto;
+import dev.payments.api.presentation.dtos.PaymentSliceDto;
+import dev.payments.api.presentation.dtos.RejectedPaymentDto;
+import dev.payments.api.presentation.dtos.UpdatePaymentStatusBatchItemDto;
+import dev.payments.api.presentation.dtos.UpdatePaymentStatusBatchResultDto;
 import dev.payments.api.presentation.dtos.UpdatePaymentStatusDto;
+import dev.payments.api.presentation.dtos.VersionedPaymentDto;
+import dev.payments.api.domain.entities.ArchivedPayment;
 import dev.payments.api.domain.entities.Payment;
-import dev.payments.api.domain.entities.PaymentMethod;
+import dev.payments.api.domain.entities.PaymentRecord;
 import dev.payments.api.domain.entities.PaymentStatus;
+import dev.payments.api.domain.events.PaymentChangedEvent;
+import dev.payments.api.domain.repositories.ArchivedPaymentRepository;
+import dev.payments.api.domain.repositories.PaymentKeysetRow;
 import dev.payments.api.domain.repositories.PaymentRepository;
+import dev.payments.api.domain.repositories.PaymentSpecifications;
+import dev.payments.api.domain.repositories.PaymentStatusView;
+import dev.payments.api.infrastructure.metrics.PaymentMetrics;
+import dev.payments.api.infrastructure.sharding.PaymentShards;
 import dev.payments.api.presentation.services.PaymentService;
 import jakarta.transaction.Transactional;
-import org.springframework.data.domain.Example;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 @Service
 public class PaymentServiceImpl implements PaymentService {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(PaymentServiceImpl.class);
+
+    private static final String INVALID_CARD_NUMBER_MESSAGE =
+            "Só pode haver número de cartão, caso o método de pagamento utilize cartão!";
+
+    private static final String PAYMENT_NOT_FOUND_MESSAGE = "O pagamento não foi encontrado!";
+
+    private static final String PAYMENT_ALREADY_SUCCEEDED_MESSAGE = "O pagamento já foi concluido!";
+
+    private static final String FAILED_PAYMENT_TRANSITION_MESSAGE =
+            "O pagamento atual falhou, logo só pode ser alterado para o status 'pendente'!";
+
+    private static final String PENDING_PAYMENT_TRANSITION_MESSAGE =
+            "O pagamento com estado pendente só pode ser alterado para o status de sucesso ou de falha!";
+
+    private static final String CONCURRENT_MODIFICATION_MESSAGE =
+            "O pagamento foi alterado por outra requisição, tente novamente!";
+
+    private static final String PAYMENT_NOT_PENDING_MESSAGE =
+            "O pagamento não pode ser deletado, pois não está com processamento pendente!";
+
+    // Each chunk is persisted by one saveAll call, i.e. one transaction flushed as
+    // JDBC batches of spring.jpa.properties.hibernate.jdbc.batch_size statements.
+    private static final int BATCH_CHUNK_SIZE = 500;
+
+    private static final int MAX_SLICE_SIZE = 1000;
+
+    private static final String PAYMENT_CACHE = "payments";
+
+    private static final String UNLESS_PINNED_TO_PRIMARY =
+            "!T(dev.payments.api.infrastructure.routing.ReadWriteRoutingDataSource).isPinnedToPrimary()";
+
     private final PaymentRepository paymentRepository;
 
-    public PaymentServiceImpl(PaymentRepository paymentRepository) {
+    private final ArchivedPaymentRepository archivedPaymentRepository;
+
+    private final Validator validator;
+
+    private final PaymentMetrics paymentMetrics;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Writes bind the shard of the user, or of the payment id, before their first
+    // statement; listings without a user filter are gathered from every shard.
+    private final PaymentShards paymentShards;
+
+    private final ShardedPaymentLister shardedPaymentLister;
+
+    // Batch operations commit chunk by chunk, each chunk in its own transaction.
+    private final TransactionTemplate transactionTemplate;
+
+    public PaymentServiceImpl(
+            PaymentRepository paymentRepository,
+            ArchivedPaymentRepository archivedPaymentRepository,
+            Validator validator,
+            PaymentMetrics paymentMetrics,
+            ApplicationEventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager,
+            PaymentShards paymentShards
+    ) {
         this.paymentRepository = paymentRepository;
+        this.archivedPaymentRepository = archivedPaymentRepository;
+        this.validator = validator;
+        this.paymentMetrics = paymentMetrics;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.paymentShards = paymentShards;
+        this.shardedPaymentLister = new ShardedPaymentLister(paymentRepository, paymentShards);
     }
 
     @Override
     @Transactional
     public PaymentDto createPayment(CreatePaymentDto createPaymentDto) {
 
-        HashSet<PaymentMethod> cardRelatedMethods = new HashSet<>();
-        cardRelatedMethods.add(PaymentMethod.DEBIT_CARD);
-        cardRelatedMethods.add(PaymentMethod.CREDIT_CARD);
-
-        boolean isCardNumberNullable = createPaymentDto.cardNumber() == null;
-        boolean isCardRelatedMethod = cardRelatedMethods.contains(createPaymentDto.method());
-
-        if (isCardRelatedMethod && isCardNumberNullable || !isCardRelatedMethod && !isCardNumberNullable) {
-            throw new ResponseStatusException(
-                    HttpStatus.BAD_REQUEST,
-                    "Só pode haver número de cartão, caso o método de pagamento utilize cartão!"
-            );
+        if (!hasValidCardNumber(createPaymentDto)) {
+            throw rejection(HttpStatus.BAD_REQUEST, PaymentMetrics.Rejection.INVALID_CARD_NUMBER, INVALID_CARD_NUMBER_MESSAGE);
         }
 
+        paymentShards.bindToTransaction(paymentShards.shardOf(createPaymentDto.userIdentification()));
+
         Payment payment = new Payment(createPaymentDto);
         Payment createdPayment = paymentRepository.save(payment);
+        eventPublisher.publishEvent(PaymentChangedEvent.created(createdPayment));
+        paymentMetrics.recordCreated(createdPayment.getMethod());
 
         return new PaymentDto(createdPayment);
 
     }
 
+    @Override
+    public List<BatchPaymentResultDto> createPayments(List<CreatePaymentDto> createPaymentDtos) {
+
+        BatchPaymentResultDto[] results = new BatchPaymentResultDto[createPaymentDtos.size()];
+
+        // One chunk per shard, since a chunk is saved in a single transaction.
+        List<List<Payment>> chunks = new ArrayList<>(paymentShards.count());
+        List<List<Integer>> chunkIndexes = new ArrayList<>(paymentShards.count());
+
+        for (int shard = 0; shard < paymentShards.count(); shard++) {
+            chunks.add(new ArrayList<>(BATCH_CHUNK_SIZE));
+            chunkIndexes.add(new ArrayList<>(BATCH_CHUNK_SIZE));
+        }
+
+        for (int index = 0; index < createPaymentDtos.size(); index++) {
+
+            String error = validatePayment(createPaymentDtos.get(index));
+
+            if (error != null) {
+                results[index] = BatchPaymentResultDto.failure(index, error);
+                continue;
+            }
+
+            int shard = paymentShards.shardOf(createPaymentDtos.get(index).userIdentification());
+
+            chunks.get(shard).add(new Payment(createPaymentDtos.get(index)));
+            chunkIndexes.get(shard).add(index);
+
+            if (chunks.get(shard).size() == BATCH_CHUNK_SIZE) {
+                saveChunk(shard, chunks.get(shard), chunkIndexes.get(shard), results);
+            }
+
+        }
+
+        for (int shard = 0; shard < paymentShards.count(); shard++) {
+            saveChunk(shard, chunks.get(shard), chunkIndexes.get(shard), results);
+        }
+
+        return Arrays.asList(results);
+
+    }
+
     @Override
     @Transactional
+    @CacheEvict(cacheNames = PAYMENT_CACHE, key = "#paymentId")
     public PaymentDto updatePaymentStatus(UUID paymentId, UpdatePaymentStatusDto updatePaymentStatusDto) {
 
         PaymentStatus paymentStatus = updatePaymentStatusDto.status();
 
-        Payment foundPayment = findPaymentById(paymentId);
-        PaymentStatus foundPaymentStatus = foundPayment.getStatus();
+        paymentShards.bindToTransaction(paymentShards.shardOf(paymentId));
+
+        // The guarded UPDATE runs first and hands back the row as it was, so a successful
+        // update costs one statement; the row is only read to explain a refusal.
+        PaymentStatusView previous = paymentRepository
+                .updateStatusReturningPrevious(paymentId, PaymentStateMachine.sourcesOf(paymentStatus), paymentStatus)
+                .orElseThrow(() -> refusedWrite(paymentId, status -> PaymentStateMachine.transition(status, paymentStatus)));
+
+        eventPublisher.publishEvent(PaymentChangedEvent.statusChanged(
+                paymentId,
+                previous.getDebitCode(),
+                previous.getUserIdentification(),
+                previous.getMethod(),
+                previous.getPaymentValue(),
+                previous.getStatus(),
+                paymentStatus
+        ));
+        paymentMetrics.recordTransition(previous.getStatus(), paymentStatus, 1);
+
+        return new PaymentDto(
+                paymentId,
+                previous.getDebitCode(),
+                previous.getUserIdentification(),
+                previous.getMethod(),
+                paymentStatus,
+                previous.getPaymentValue()
+        );
+
+    }
+
+    @Override
+    @CacheEvict(cacheNames = PAYMENT_CACHE, allEntries = true)
+    public UpdatePaymentStatusBatchResultDto updatePaymentStatuses(List<UpdatePaymentStatusBatchItemDto> items) {
+
+        List<UUID> updated = new ArrayList<>();
+        List<RejectedPaymentDto> rejected = new ArrayList<>();
+
+        Map<UUID, PaymentStatus> targetStatuses = new LinkedHashMap<>();
+
+        for (UpdatePaymentStatusBatchItemDto item : items) {
+
+            if (item == null || item.id() == null || item.status() == null) {
+                rejected.add(new RejectedPaymentDto(
+                        item == null ? null : item.id(),
+                        rejectionMessage(PaymentMetrics.Rejection.INVALID_REQUEST, "O id e o status do pagamento são obrigatórios!")
+                ));
+                continue;
+            }
+
+            if (targetStatuses.putIfAbsent(item.id(), item.status()) != null) {
+                rejected.add(new RejectedPaymentDto(
+                        item.id(),
+                        rejectionMessage(PaymentMetrics.Rejection.INVALID_REQUEST, "O pagamento foi informado mais de uma vez no lote!")
+                ));
+            }
 
-        if (foundPayment.isCancelled()) {
-            throw new ResponseStatusException(
-                    HttpStatus.NOT_FOUND,
-                    "O pagamento não foi encontrado!"
-            );
         }
 
-        if (foundPaymentStatus == PaymentStatus.SUCCESS) {
-            throw new ResponseStatusException(
-                    HttpStatus.BAD_REQUEST,
-                    "O pagamento já foi concluido!"
-            );
+        Map<Integer, List<UUID>> paymentIdsByShard = new TreeMap<>();
+        targetStatuses.keySet().forEach(paymentId -> paymentIdsByShard
+                .computeIfAbsent(paymentShards.shardOf(paymentId), shard -> new ArrayList<>())
+                .add(paymentId));
+
+        paymentIdsByShard.forEach((shard, paymentIds) -> {
+            for (int from = 0; from < paymentIds.size(); from += BATCH_CHUNK_SIZE) {
+                List<UUID> chunk = paymentIds.subList(from, Math.min(from + BATCH_CHUNK_SIZE, paymentIds.size()));
+                paymentShards.runOn(shard, () -> updateStatusChunk(chunk, targetStatuses, updated, rejected));
+            }
+        });
+
+        return new UpdatePaymentStatusBatchResultDto(updated, rejected);
+
+    }
+
+    @Override
+    public Page<PaymentDto> getPayments(PaymentFilterDto filter, Pageable pageable) {
+
+        if (isScattered(filter)) {
+            return filter.includeArchived()
+                    ? shardedPaymentLister.findPage(PaymentRecord.class, PaymentSpecifications.matching(filter), pageable)
+                    : shardedPaymentLister.findPage(Payment.class, PaymentSpecifications.matching(filter), pageable);
         }
 
-        if (foundPaymentStatus == PaymentStatus.FAILED && paymentStatus != PaymentStatus.PENDING) {
+        return paymentShards.callOn(shardOf(filter), () -> filter.includeArchived()
+                ? paymentRepository.findPaymentDtos(PaymentRecord.class, PaymentSpecifications.matching(filter), pageable)
+                : paymentRepository.findPaymentDtos(Payment.class, PaymentSpecifications.matching(filter), pageable));
+
+    }
+
+    @Override
+    public PaymentSliceDto scrollPayments(PaymentFilterDto filter, String cursor, int size) {
+
+        if (size < 1 || size > MAX_SLICE_SIZE) {
             throw new ResponseStatusException(
                     HttpStatus.BAD_REQUEST,
-                    "O pagamento atual falhou, logo só pode ser alterado para o status 'pendente'!"
+                    "O tamanho da página deve estar entre 1 e " + MAX_SLICE_SIZE + "!"
             );
         }
 
-        if (foundPaymentStatus == PaymentStatus.PENDING && paymentStatus == PaymentStatus.PENDING) {
-            throw new ResponseStatusException(
-                    HttpStatus.BAD_REQUEST,
-                    "O pagamento com estado pendente só pode ser alterado para o status de sucesso ou de falha!"
-            );
+        PaymentCursor position = cursor == null || cursor.isBlank() ? null : PaymentCursor.decode(cursor);
+
+        // One extra row tells whether another slice follows, without a COUNT.
+        Date createdAt = position == null ? null : position.createdAtTimestamp();
+        UUID id = position == null ? null : position.id();
+
+        List<PaymentKeysetRow> rows;
+
+        if (isScattered(filter)) {
+            rows = filter.includeArchived()
+                    ? shardedPaymentLister.findAfter(PaymentRecord.class, PaymentSpecifications.matching(filter), createdAt, id, size + 1)
+                    : shardedPaymentLister.findAfter(Payment.class, PaymentSpecifications.matching(filter), createdAt, id, size + 1);
+        } else {
+            rows = paymentShards.callOn(shardOf(filter), () -> filter.includeArchived()
+                    ? paymentRepository.findPaymentDtosAfter(PaymentRecord.class, PaymentSpecifications.matching(filter), createdAt, id, size + 1)
+                    : paymentRepository.findPaymentDtosAfter(Payment.class, PaymentSpecifications.matching(filter), createdAt, id, size + 1));
         }
 
-        foundPayment.setStatus(paymentStatus);
+        boolean hasNext = rows.size() > size;
+        List<PaymentKeysetRow> slice = hasNext ? rows.subList(0, size) : rows;
+
+        List<PaymentDto> content = slice.stream().map(PaymentKeysetRow::payment).toList();
 
-        Payment updatedPayment = paymentRepository.save(foundPayment);
+        String nextCursor = hasNext ? PaymentCursor.of(slice.get(slice.size() - 1)).encode() : null;
 
-        return new PaymentDto(updatedPayment);
+        return new PaymentSliceDto(content, content.size(), hasNext, nextCursor);
 
     }
 
     @Override
-    public Page<PaymentDto> getPayments(
-            Long debitCode,
-            PaymentStatus paymentStatus,
-            String userIdentification,
-            Pageable pageable
-    ) {
+    public void exportPayments(PaymentFilterDto filter, Consumer<PaymentDto> consumer) {
+
+        if (isScattered(filter)) {
+            if (filter.includeArchived()) {
+                shardedPaymentLister.forEach(PaymentRecord.class, PaymentSpecifications.matching(filter), consumer);
+            } else {
+                shardedPaymentLister.forEach(Payment.class, PaymentSpecifications.matching(filter), consumer);
+            }
+            return;
+        }
+
+        paymentShards.runOn(shardOf(filter), () -> {
+            if (filter.includeArchived()) {
+                paymentRepository.forEachPaymentDto(PaymentRecord.class, PaymentSpecifications.matching(filter), consumer);
+            } else {
+                paymentRepository.forEachPaymentDto(Payment.class, PaymentSpecifications.matching(filter), consumer);
+            }
+        });
+
+    }
+
+    // Callers pinned to the primary after a write skip the cache both ways: an entry may
+    // have been filled from a lagging replica after the write evicted the previous one.
+    @Override
+    @Cacheable(cacheNames = PAYMENT_CACHE, key = "#paymentId", condition = UNLESS_PINNED_TO_PRIMARY)
+    public VersionedPaymentDto getPayment(UUID paymentId) {
+        return paymentShards.callOn(paymentShards.shardOf(paymentId), () -> findPayment(paymentId));
+    }
+
+    private VersionedPaymentDto findPayment(UUID paymentId) {
 
-        Payment payment = new Payment();
-        payment.setDebitCode(debitCode);
-        payment.setStatus(paymentStatus);
-        payment.setUserIdentification(userIdentification);
-        payment.setCancelled(false);
+        Optional<Payment> foundPaymentReference = paymentRepository.findById(paymentId);
 
-        Page<Payment> payments = paymentRepository.findAll(Example.of(payment), pageable);
+        // Final payments are moved to the archive after a while, but stay readable by id.
+        if (foundPaymentReference.isEmpty()) {
+            return archivedPaymentRepository.findById(paymentId)
+                    .filter(archivedPayment -> !archivedPayment.isCancelled())
+                    .map(VersionedPaymentDto::new)
+                    .orElseThrow(() -> rejection(HttpStatus.NOT_FOUND, PaymentMetrics.Rejection.NOT_FOUND, PAYMENT_NOT_FOUND_MESSAGE));
+        }
 
-        return payments.map(PaymentDto::new);
+        Payment foundPayment = foundPaymentReference.get();
+
+        if (foundPayment.isCancelled()) {
+            throw rejection(HttpStatus.NOT_FOUND, PaymentMetrics.Rejection.NOT_FOUND, PAYMENT_NOT_FOUND_MESSAGE);
+        }
+
+        return new VersionedPaymentDto(foundPayment);
 
     }
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = PAYMENT_CACHE, key = "#paymentId")
     public void deletePayment(UUID paymentId) {
 
-        Payment foundPayment = findPaymentById(paymentId);
+        paymentShards.bindToTransaction(paymentShards.shardOf(paymentId));
 
-        if (foundPayment.isCancelled()) {
-            throw new ResponseStatusException(
-                    HttpStatus.NOT_FOUND,
-                    "O pagamento não foi encontrado!"
-            );
+        PaymentStatusView previous = paymentRepository
+                .cancelReturningPrevious(paymentId, PaymentStateMachine.cancellableStatuses())
+                .orElseThrow(() -> refusedWrite(paymentId, PaymentStateMachine::cancellation));
+
+        eventPublisher.publishEvent(PaymentChangedEvent.cancelled(
+                paymentId,
+                previous.getDebitCode(),
+                previous.getUserIdentification(),
+                previous.getMethod(),
+                previous.getPaymentValue(),
+                previous.getStatus()
+        ));
+        paymentMetrics.recordCancellation(previous.getStatus());
+
+    }
+
+    // Reads the row a guarded write left untouched to tell why: it is gone or cancelled,
+    // its status forbids the change, or it changed between the write and this read.
+    // Archived payments are final, so a write to one is refused by its status, the same
+    // way it was before the payment left the payments table.
+    private ResponseStatusException refusedWrite(UUID paymentId, Function<PaymentStatus, PaymentStateMachine.Verdict> rule) {
+
+        Optional<Payment> foundPayment = paymentRepository.findById(paymentId);
+
+        Optional<PaymentStatus> currentStatus = foundPayment.isPresent()
+                ? foundPayment.filter(payment -> !payment.isCancelled()).map(Payment::getStatus)
+                : archivedPaymentRepository.findById(paymentId)
+                        .filter(archivedPayment -> !archivedPayment.isCancelled())
+                        .map(ArchivedPayment::getStatus);
+
+        if (currentStatus.isEmpty()) {
+            return rejection(HttpStatus.NOT_FOUND, PaymentMetrics.Rejection.NOT_FOUND, PAYMENT_NOT_FOUND_MESSAGE);
         }
 
-        if (foundPayment.getStatus() != PaymentStatus.PENDING) {
-            throw new ResponseStatusException(
-                    HttpStatus.BAD_REQUEST,
-                    "O pagamento não pode ser deletado, pois não está com processamento pendente!"
-            );
+        PaymentStateMachine.Verdict verdict = rule.apply(currentStatus.get());
+
+        if (verdict != PaymentStateMachine.Verdict.ALLOWED) {
+            return rejection(HttpStatus.BAD_REQUEST, rejectionOf(verdict), verdictMessage(verdict));
         }
 
-        foundPayment.setCancelled(true);
+        return rejection(HttpStatus.CONFLICT, PaymentMetrics.Rejection.CONCURRENT_MODIFICATION, CONCURRENT_MODIFICATION_MESSAGE);
 
-        paymentRepository.save(foundPayment);
+    }
 
+    private boolean isScattered(PaymentFilterDto filter) {
+        return paymentShards.isSharded() && filter.userIdentification() == null;
     }
 
-    private Payment findPaymentById(UUID paymentId) {
+    private int shardOf(PaymentFilterDto filter) {
+        return filter.userIdentification() == null ? 0 : paymentShards.shardOf(filter.userIdentification());
+    }
 
-        Optional<Payment> foundPaymentReference = paymentRepository.findById(paymentId);
+    private String validatePayment(CreatePaymentDto createPaymentDto) {
 
-        if (foundPaymentReference.isEmpty()) {
-            throw new ResponseStatusException(
-                    HttpStatus.NOT_FOUND,
-                    "O pagamento não foi encontrado!"
-            );
+        if (createPaymentDto == null) {
+            return rejectionMessage(PaymentMetrics.Rejection.INVALID_REQUEST, "O pagamento não pode ser nulo!");
+        }
+
+        Set<ConstraintViolation<CreatePaymentDto>> violations = validator.validate(createPaymentDto);
+
+        if (!violations.isEmpty()) {
+            return rejectionMessage(PaymentMetrics.Rejection.INVALID_REQUEST, violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+
+        if (!hasValidCardNumber(createPaymentDto)) {
+            return rejectionMessage(PaymentMetrics.Rejection.INVALID_CARD_NUMBER, INVALID_CARD_NUMBER_MESSAGE);
         }
 
-        return foundPaymentReference.get();
+        return null;
+
+    }
+
+    private void updateStatusChunk(
+            List<UUID> paymentIds,
+            Map<UUID, PaymentStatus> targetStatuses,
+            List<UUID> updated,
+            List<RejectedPaymentDto> rejected
+    ) {
+
+        Map<UUID, PaymentStatusView> currentStatuses = new HashMap<>();
+        Map<PaymentStatus, List<UUID>> eligibleByTarget = new EnumMap<>(PaymentStatus.class);
+
+        Boolean updatedInBulk = transactionTemplate.execute(status -> {
+
+            paymentRepository.findStatusesByIdIn(paymentIds).forEach(view -> currentStatuses.put(view.getId(), view));
+
+            for (UUID paymentId : paymentIds) {
+
+                PaymentStatus targetStatus = targetStatuses.get(paymentId);
+                String error = statusTransitionError(currentStatuses.get(paymentId), targetStatus);
+
+                if (error != null) {
+                    rejected.add(new RejectedPaymentDto(paymentId, error));
+                } else {
+                    eligibleByTarget.computeIfAbsent(targetStatus, target -> new ArrayList<>()).add(paymentId);
+                }
+
+            }
+
+            for (Map.Entry<PaymentStatus, List<UUID>> eligible : eligibleByTarget.entrySet()) {
+
+                int updatedCount = paymentRepository.updateStatusByIdIn(
+                        eligible.getValue(),
+                        PaymentStateMachine.sourcesOf(eligible.getKey()),
+                        eligible.getKey()
+                );
+
+                if (updatedCount != eligible.getValue().size()) {
+                    status.setRollbackOnly();
+                    return false;
+                }
+
+            }
+
+            eligibleByTarget.forEach((targetStatus, ids) -> {
+                ids.forEach(paymentId -> recordBulkTransition(currentStatuses.get(paymentId), targetStatus));
+                updated.addAll(ids);
+            });
+            return true;
+
+        });
+
+        if (Boolean.TRUE.equals(updatedInBulk)) {
+            return;
+        }
+
+        // Some rows changed between the read and the guarded UPDATE, so the bulk UPDATE is
+        // rolled back and each row is moved only from the version that was read; a row
+        // another writer already moved is reported as such rather than as changed here.
+        transactionTemplate.executeWithoutResult(status -> eligibleByTarget.forEach((targetStatus, ids) -> {
+            for (UUID paymentId : ids) {
+
+                PaymentStatusView view = currentStatuses.get(paymentId);
+
+                int updatedCount = paymentRepository.updateStatus(
+                        paymentId,
+                        view.getVersion(),
+                        PaymentStateMachine.sourcesOf(targetStatus),
+                        targetStatus
+                );
+
+                if (updatedCount == 1) {
+                    recordBulkTransition(view, targetStatus);
+                    updated.add(paymentId);
+                } else {
+                    rejected.add(new RejectedPaymentDto(
+                            paymentId,
+                            rejectionMessage(PaymentMetrics.Rejection.CONCURRENT_MODIFICATION, CONCURRENT_MODIFICATION_MESSAGE)
+                    ));
+                }
+
+            }
+        }));
+
+    }
+
+    private void recordBulkTransition(PaymentStatusView previous, PaymentStatus targetStatus) {
+
+        eventPublisher.publishEvent(PaymentChangedEvent.statusChanged(
+                previous.getId(),
+                previous.getDebitCode(),
+                previous.getUserIdentification(),
+                previous.getMethod(),
+                previous.getPaymentValue(),
+                previous.getStatus(),
+                targetStatus
+        ));
+        paymentMetrics.recordTransition(previous.getStatus(), targetStatus, 1);
+
+    }
+
+    private String statusTransitionError(PaymentStatusView currentStatus, PaymentStatus targetStatus) {
+
+        if (currentStatus == null || currentStatus.getCancelled()) {
+            return rejectionMessage(PaymentMetrics.Rejection.NOT_FOUND, PAYMENT_NOT_FOUND_MESSAGE);
+        }
+
+        PaymentStateMachine.Verdict verdict = PaymentStateMachine.transition(currentStatus.getStatus(), targetStatus);
+
+        return verdict == PaymentStateMachine.Verdict.ALLOWED
+                ? null
+                : rejectionMessage(rejectionOf(verdict), verdictMessage(verdict));
+
+    }
+
+    private static String verdictMessage(PaymentStateMachine.Verdict verdict) {
+        return switch (verdict) {
+            case ALREADY_SUCCEEDED -> PAYMENT_ALREADY_SUCCEEDED_MESSAGE;
+            case FAILED_REQUIRES_PENDING -> FAILED_PAYMENT_TRANSITION_MESSAGE;
+            case PENDING_REQUIRES_FINAL -> PENDING_PAYMENT_TRANSITION_MESSAGE;
+            case NOT_CANCELLABLE -> PAYMENT_NOT_PENDING_MESSAGE;
+            case ALLOWED -> throw new IllegalArgumentException("An allowed transition has no message");
+        };
+    }
+
+    private static PaymentMetrics.Rejection rejectionOf(PaymentStateMachine.Verdict verdict) {
+        return switch (verdict) {
+            case ALREADY_SUCCEEDED -> PaymentMetrics.Rejection.ALREADY_SUCCEEDED;
+            case FAILED_REQUIRES_PENDING, PENDING_REQUIRES_FINAL -> PaymentMetrics.Rejection.INVALID_TRANSITION;
+            case NOT_CANCELLABLE -> PaymentMetrics.Rejection.NOT_PENDING;
+            case ALLOWED -> throw new IllegalArgumentException("An allowed transition is not a rejection");
+        };
+    }
+
+    private boolean hasValidCardNumber(CreatePaymentDto createPaymentDto) {
+
+        boolean isCardNumberNullable = createPaymentDto.cardNumber() == null;
+
+        return createPaymentDto.method().usesCard() != isCardNumberNullable;
+
+    }
+
+    private void saveChunk(int shard, List<Payment> chunk, List<Integer> chunkIndexes, BatchPaymentResultDto[] results) {
+
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        try {
+            List<Payment> createdPayments = paymentShards.callOn(shard, () -> transactionTemplate.execute(status -> {
+                List<Payment> savedPayments = paymentRepository.saveAll(chunk);
+                savedPayments.forEach(payment -> eventPublisher.publishEvent(PaymentChangedEvent.created(payment)));
+                return savedPayments;
+            }));
+
+            for (int i = 0; i < createdPayments.size(); i++) {
+                paymentMetrics.recordCreated(createdPayments.get(i).getMethod());
+                int index = chunkIndexes.get(i);
+                results[index] = BatchPaymentResultDto.success(index, new PaymentDto(createdPayments.get(i)));
+            }
+        } catch (RuntimeException e) {
+            // Callers only see a generic rejection per payment, so the cause is logged here.
+            LOGGER.warn("Failed to save a chunk of {} payments on shard {}", chunkIndexes.size(), shard, e);
+            for (int index : chunkIndexes) {
+                results[index] = BatchPaymentResultDto.failure(index, "Não foi possível salvar o pagamento!");
+            }
+        }
+
+        chunk.clear();
+        chunkIndexes.clear();
+
+    }
+
+    private ResponseStatusException rejection(HttpStatus status, PaymentMetrics.Rejection reason, String message) {
+        return new ResponseStatusException(status, rejectionMessage(reason, message));
+    }
 
+    // Counts the rejection under its reason and hands its message back to the caller.
+    private String rejectionMessage(PaymentMetrics.Rejection reason, String message) {
+        paymentMetrics.recordRejection(reason);
+        return message;
     }
 
 }
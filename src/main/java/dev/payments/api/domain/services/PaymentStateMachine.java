@@ -0,0 +1,127 @@
+package dev.payments.api.domain.services;
+
+import dev.payments.api.domain.entities.PaymentStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single source of truth for payment status transitions and cancellation.
+ * <p>
+ * The rules are expanded once into tables indexed by {@link PaymentStatus#ordinal()}, so
+ * every check is an array read. The same tables provide the status lists the repository
+ * uses as guards in its conditional UPDATEs, so the database enforces the rules the
+ * service checked.
+ */
+public final class PaymentStateMachine {
+
+    public enum Verdict {
+        ALLOWED,
+        ALREADY_SUCCEEDED,
+        FAILED_REQUIRES_PENDING,
+        PENDING_REQUIRES_FINAL,
+        NOT_CANCELLABLE
+    }
+
+    private static final PaymentStatus[] STATUSES = PaymentStatus.values();
+
+    private static final Verdict[][] TRANSITIONS = new Verdict[STATUSES.length][STATUSES.length];
+
+    private static final Verdict[] CANCELLATIONS = new Verdict[STATUSES.length];
+
+    private static final List<List<PaymentStatus>> SOURCES = new ArrayList<>(STATUSES.length);
+
+    private static final List<PaymentStatus> CANCELLABLE_STATUSES;
+
+    private static final List<PaymentStatus> TERMINAL_STATUSES;
+
+    static {
+
+        // source, verdict for any target not listed, allowed targets
+        define(PaymentStatus.PENDING, Verdict.PENDING_REQUIRES_FINAL, PaymentStatus.SUCCESS, PaymentStatus.FAILED);
+        define(PaymentStatus.FAILED, Verdict.FAILED_REQUIRES_PENDING, PaymentStatus.PENDING);
+        define(PaymentStatus.SUCCESS, Verdict.ALREADY_SUCCEEDED);
+
+        for (PaymentStatus status : STATUSES) {
+            CANCELLATIONS[status.ordinal()] = status == PaymentStatus.PENDING ? Verdict.ALLOWED : Verdict.NOT_CANCELLABLE;
+        }
+
+        for (PaymentStatus target : STATUSES) {
+            List<PaymentStatus> sources = new ArrayList<>();
+            for (PaymentStatus source : STATUSES) {
+                if (TRANSITIONS[source.ordinal()][target.ordinal()] == Verdict.ALLOWED) {
+                    sources.add(source);
+                }
+            }
+            SOURCES.add(List.copyOf(sources));
+        }
+
+        List<PaymentStatus> cancellable = new ArrayList<>();
+        for (PaymentStatus status : STATUSES) {
+            if (CANCELLATIONS[status.ordinal()] == Verdict.ALLOWED) {
+                cancellable.add(status);
+            }
+        }
+        CANCELLABLE_STATUSES = List.copyOf(cancellable);
+
+        List<PaymentStatus> terminal = new ArrayList<>();
+        for (PaymentStatus status : STATUSES) {
+            boolean hasWayOut = CANCELLATIONS[status.ordinal()] == Verdict.ALLOWED;
+            for (PaymentStatus target : STATUSES) {
+                hasWayOut |= TRANSITIONS[status.ordinal()][target.ordinal()] == Verdict.ALLOWED;
+            }
+            if (!hasWayOut) {
+                terminal.add(status);
+            }
+        }
+        TERMINAL_STATUSES = List.copyOf(terminal);
+
+    }
+
+    private PaymentStateMachine() {
+    }
+
+    public static Verdict transition(PaymentStatus from, PaymentStatus to) {
+        return TRANSITIONS[from.ordinal()][to.ordinal()];
+    }
+
+    public static Verdict cancellation(PaymentStatus from) {
+        return CANCELLATIONS[from.ordinal()];
+    }
+
+    /**
+     * Statuses a payment may hold for an UPDATE to {@code to} to be valid.
+     */
+    public static List<PaymentStatus> sourcesOf(PaymentStatus to) {
+        return SOURCES.get(to.ordinal());
+    }
+
+    /**
+     * Statuses a payment may hold for a cancellation to be valid.
+     */
+    public static List<PaymentStatus> cancellableStatuses() {
+        return CANCELLABLE_STATUSES;
+    }
+
+    /**
+     * Statuses a payment can neither leave nor be cancelled in.
+     */
+    public static List<PaymentStatus> terminalStatuses() {
+        return TERMINAL_STATUSES;
+    }
+
+    private static void define(PaymentStatus from, Verdict otherwise, PaymentStatus... allowedTargets) {
+
+        Verdict[] row = TRANSITIONS[from.ordinal()];
+
+        for (PaymentStatus to : STATUSES) {
+            row[to.ordinal()] = otherwise;
+        }
+
+        for (PaymentStatus to : allowedTargets) {
+            row[to.ordinal()] = Verdict.ALLOWED;
+        }
+
+    }
+
+}
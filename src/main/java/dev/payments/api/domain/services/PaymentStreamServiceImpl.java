@@ -0,0 +1,312 @@
+package dev.payments.api.domain.services;
+
+import dev.payments.api.domain.events.PaymentChangedEvent;
+import dev.payments.api.presentation.dtos.PaymentStatusChangeDto;
+import dev.payments.api.presentation.services.PaymentStreamService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams committed payment changes to Server-Sent Events subscribers filtered by
+ * user identification and/or debit code.
+ * <p>
+ * Subscribers are indexed by their filter, so a change only touches the subscribers it
+ * matches and an idle subscriber holds nothing but its emitter and an empty buffer. The
+ * writer's thread only offers the change to each matching buffer; sending happens on a
+ * small dispatch pool, one drain at a time per subscriber. A subscriber whose buffer
+ * fills up is disconnected instead of slowing anyone else down, and is expected to
+ * reconnect and re-read the payments it follows.
+ * <p>
+ * A client that stops reading eventually blocks a send, pinning a dispatch thread. A
+ * watchdog disconnects any subscriber whose send has taken longer than
+ * {@code payments.stream.send-timeout} and interrupts its thread, which closes the
+ * connection and frees the thread for the others.
+ */
+@Service
+public class PaymentStreamServiceImpl implements PaymentStreamService {
+
+    static final String FILTER_REQUIRED_MESSAGE = "Informe userIdentification ou debitCode para acompanhar os pagamentos!";
+
+    private final Map<String, Set<Subscriber>> subscribersByUser = new ConcurrentHashMap<>();
+
+    private final Map<Long, Set<Subscriber>> subscribersByDebitCode = new ConcurrentHashMap<>();
+
+    private final Set<Subscriber> sending = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private final Counter slowConsumers;
+
+    private final Executor dispatcher;
+
+    private final int bufferSize;
+
+    private final Duration timeout;
+
+    private final long sendTimeoutNanos;
+
+    @Autowired
+    public PaymentStreamServiceImpl(
+            MeterRegistry meterRegistry,
+            @Value("${payments.stream.buffer-size:256}") int bufferSize,
+            @Value("${payments.stream.timeout:PT30M}") Duration timeout,
+            @Value("${payments.stream.send-timeout:PT10S}") Duration sendTimeout,
+            @Value("${payments.stream.dispatch-threads:4}") int dispatchThreads
+    ) {
+        this(meterRegistry, bufferSize, timeout, sendTimeout, Executors.newFixedThreadPool(dispatchThreads));
+    }
+
+    public PaymentStreamServiceImpl(
+            MeterRegistry meterRegistry,
+            int bufferSize,
+            Duration timeout,
+            Duration sendTimeout,
+            Executor dispatcher
+    ) {
+        this.bufferSize = bufferSize;
+        this.timeout = timeout;
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        this.dispatcher = dispatcher;
+        this.slowConsumers = Counter.builder("payments.stream.slow.consumers")
+                .description("Stream subscribers disconnected because their buffer was full or a send stalled")
+                .register(meterRegistry);
+        Gauge.builder("payments.stream.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open payment stream subscriptions")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public SseEmitter subscribe(String userIdentification, Long debitCode) {
+
+        if (userIdentification == null && debitCode == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, FILTER_REQUIRED_MESSAGE);
+        }
+
+        var emitter = new SseEmitter(timeout.toMillis());
+        var subscriber = new Subscriber(emitter, userIdentification, debitCode);
+
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onError(error -> unsubscribe(subscriber));
+        emitter.onTimeout(emitter::complete);
+
+        // A first comment gets the response headers flushed, so clients see the stream
+        // open before any payment changes.
+        try {
+            emitter.send(SseEmitter.event().comment("subscribed"));
+        } catch (IOException ex) {
+            emitter.completeWithError(ex);
+            return emitter;
+        }
+
+        if (debitCode != null) {
+            subscribersByDebitCode.compute(debitCode, (key, subscribers) -> add(subscribers, subscriber));
+        } else {
+            subscribersByUser.compute(userIdentification, (key, subscribers) -> add(subscribers, subscriber));
+        }
+        subscriberCount.incrementAndGet();
+
+        return emitter;
+
+    }
+
+    // Runs once the writing transaction commits, so rolled back changes are never streamed.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPaymentChanged(PaymentChangedEvent event) {
+
+        var byDebitCode = event.debitCode() == null ? null : subscribersByDebitCode.get(event.debitCode());
+        var byUser = event.userIdentification() == null ? null : subscribersByUser.get(event.userIdentification());
+
+        if (byDebitCode == null && byUser == null) {
+            return;
+        }
+
+        var change = new PaymentStatusChangeDto(event);
+
+        if (byDebitCode != null) {
+            byDebitCode.forEach(subscriber -> subscriber.offer(change));
+        }
+        if (byUser != null) {
+            byUser.forEach(subscriber -> subscriber.offer(change));
+        }
+
+    }
+
+    @Scheduled(fixedDelayString = "${payments.stream.send-timeout-check:PT1S}")
+    public void dropStalledSubscribers() {
+        long now = System.nanoTime();
+        sending.forEach(subscriber -> subscriber.dropIfStalled(now));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        subscribersByDebitCode.values().forEach(subscribers -> subscribers.forEach(Subscriber::complete));
+        subscribersByUser.values().forEach(subscribers -> subscribers.forEach(Subscriber::complete));
+        if (dispatcher instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+
+        if (!subscriber.close()) {
+            return;
+        }
+
+        if (subscriber.debitCode != null) {
+            subscribersByDebitCode.computeIfPresent(subscriber.debitCode, (key, subscribers) -> remove(subscribers, subscriber));
+        } else {
+            subscribersByUser.computeIfPresent(subscriber.userIdentification, (key, subscribers) -> remove(subscribers, subscriber));
+        }
+        subscriberCount.decrementAndGet();
+
+    }
+
+    // Sets are only added to and removed from inside compute, so a subscriber is never
+    // added to a set that a concurrent unsubscribe has just dropped from the index.
+    private static Set<Subscriber> add(Set<Subscriber> subscribers, Subscriber subscriber) {
+        var result = subscribers == null ? ConcurrentHashMap.<Subscriber>newKeySet() : subscribers;
+        result.add(subscriber);
+        return result;
+    }
+
+    private static Set<Subscriber> remove(Set<Subscriber> subscribers, Subscriber subscriber) {
+        subscribers.remove(subscriber);
+        return subscribers.isEmpty() ? null : subscribers;
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+
+        private final String userIdentification;
+
+        private final Long debitCode;
+
+        private final BlockingQueue<PaymentStatusChangeDto> buffer = new LinkedBlockingQueue<>(bufferSize);
+
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        // Guarded by this subscriber, so the watchdog never interrupts a thread that
+        // has already moved on to another subscriber.
+        private Thread sender;
+
+        private long sendingSince;
+
+        private Subscriber(SseEmitter emitter, String userIdentification, Long debitCode) {
+            this.emitter = emitter;
+            this.userIdentification = userIdentification;
+            this.debitCode = debitCode;
+        }
+
+        private void offer(PaymentStatusChangeDto change) {
+
+            if (closed.get() || (userIdentification != null && !userIdentification.equals(change.userIdentification()))) {
+                return;
+            }
+
+            if (!buffer.offer(change)) {
+                slowConsumers.increment();
+                unsubscribe(this);
+                // Completing may wait for a send that is stuck on this client, so it is
+                // left to the dispatch pool rather than done on the writer's thread.
+                dispatcher.execute(emitter::complete);
+                return;
+            }
+
+            if (draining.compareAndSet(false, true)) {
+                dispatcher.execute(this::drain);
+            }
+
+        }
+
+        private void drain() {
+
+            try {
+                PaymentStatusChangeDto change;
+                while (!closed.get() && (change = buffer.poll()) != null) {
+                    startSending();
+                    try {
+                        emitter.send(SseEmitter.event().name(change.type().name()).data(change));
+                    } finally {
+                        stopSending();
+                    }
+                }
+            } catch (IOException | IllegalStateException ex) {
+                // The client went away; the emitter reports it through its error callback.
+                unsubscribe(this);
+            } finally {
+                draining.set(false);
+            }
+
+            // An offer may have landed between the last poll and releasing the flag.
+            if (!closed.get() && !buffer.isEmpty() && draining.compareAndSet(false, true)) {
+                dispatcher.execute(this::drain);
+            }
+
+        }
+
+        private synchronized void startSending() {
+            sender = Thread.currentThread();
+            sendingSince = System.nanoTime();
+            sending.add(this);
+        }
+
+        private synchronized void stopSending() {
+            sender = null;
+            sending.remove(this);
+            // Clears an interrupt from the watchdog that raced with the send finishing.
+            Thread.interrupted();
+        }
+
+        private synchronized void dropIfStalled(long now) {
+
+            if (sender == null || now - sendingSince < sendTimeoutNanos) {
+                return;
+            }
+
+            slowConsumers.increment();
+            unsubscribe(this);
+            // Interrupting a thread blocked on a socket channel closes the channel, which
+            // fails the send; the emitter then reports the error as usual.
+            sender.interrupt();
+
+        }
+
+        private void complete() {
+            if (!closed.get()) {
+                emitter.complete();
+            }
+        }
+
+        private boolean close() {
+            return closed.compareAndSet(false, true);
+        }
+
+    }
+
+}
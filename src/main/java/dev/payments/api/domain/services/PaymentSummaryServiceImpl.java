@@ -0,0 +1,286 @@
+package dev.payments.api.domain.services;
+
+import dev.payments.api.domain.entities.PaymentMethod;
+import dev.payments.api.domain.entities.PaymentStatus;
+import dev.payments.api.domain.entities.PaymentSummaryId;
+import dev.payments.api.domain.events.PaymentChangedEvent;
+import dev.payments.api.domain.repositories.PaymentSummaryRepository;
+import dev.payments.api.domain.repositories.PaymentTotalsView;
+import dev.payments.api.presentation.dtos.PaymentSummaryDto;
+import dev.payments.api.presentation.dtos.PaymentTotalsDto;
+import dev.payments.api.infrastructure.sharding.PaymentShards;
+import dev.payments.api.presentation.services.PaymentSummaryService;
+import jakarta.annotation.PostConstruct;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps per-user totals in the payment_summaries table and overall totals in striped
+ * in-memory counters, both fed by {@link PaymentChangedEvent}s.
+ * <p>
+ * The deltas of a transaction are accumulated while it runs and written to the table
+ * right before it commits, one increment per touched row, in key order so concurrent
+ * writers lock rows in the same order. The in-memory counters only move once the
+ * transaction has committed. Values are kept in cents.
+ * <p>
+ * A user's rows live on that user's shard, next to their payments; the in-memory
+ * counters add up every shard.
+ */
+@Service
+public class PaymentSummaryServiceImpl implements PaymentSummaryService {
+
+    private static final PaymentStatus[] STATUSES = PaymentStatus.values();
+
+    private static final PaymentMethod[] METHODS = PaymentMethod.values();
+
+    private static final Comparator<PaymentSummaryId> ROW_ORDER = Comparator
+            .comparing(PaymentSummaryId::getUserIdentification)
+            .thenComparing(PaymentSummaryId::getStatus)
+            .thenComparing(PaymentSummaryId::getMethod);
+
+    private final LongAdder[][] counts = newCounters();
+
+    private final LongAdder[][] cents = newCounters();
+
+    // Writers hold the read side from the moment they write their increments until they
+    // complete; a rebuild holds the write side, so it never races a half-applied delta.
+    private final ReentrantReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+
+    private final PaymentSummaryRepository paymentSummaryRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final PaymentShards paymentShards;
+
+    public PaymentSummaryServiceImpl(
+            PaymentSummaryRepository paymentSummaryRepository,
+            PlatformTransactionManager transactionManager,
+            PaymentShards paymentShards
+    ) {
+        this.paymentSummaryRepository = paymentSummaryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.paymentShards = paymentShards;
+    }
+
+    @PostConstruct
+    void loadCounters() {
+        resetCounters();
+        paymentShards.forEachShard(shard -> transactionTemplate.executeWithoutResult(
+                status -> addCounters(paymentSummaryRepository.findOverallTotals())
+        ));
+    }
+
+    @EventListener
+    public void onPaymentChanged(PaymentChangedEvent event) {
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Payment changes must be published inside a transaction");
+        }
+
+        PendingDeltas deltas = (PendingDeltas) TransactionSynchronizationManager.getResource(this);
+
+        if (deltas == null) {
+            deltas = new PendingDeltas();
+            TransactionSynchronizationManager.bindResource(this, deltas);
+            TransactionSynchronizationManager.registerSynchronization(deltas);
+        }
+
+        long valueInCents = toCents(event.value());
+
+        switch (event.type()) {
+            case CREATED -> deltas.add(event.userIdentification(), event.status(), event.method(), 1, valueInCents);
+            case STATUS_CHANGED -> {
+                deltas.add(event.userIdentification(), event.previousStatus(), event.method(), -1, -valueInCents);
+                deltas.add(event.userIdentification(), event.status(), event.method(), 1, valueInCents);
+            }
+            case CANCELLED -> deltas.add(event.userIdentification(), event.status(), event.method(), -1, -valueInCents);
+        }
+
+    }
+
+    @Override
+    public PaymentSummaryDto getSummary(String userIdentification) {
+
+        long[][] rowCounts = new long[STATUSES.length][METHODS.length];
+        long[][] rowCents = new long[STATUSES.length][METHODS.length];
+
+        if (userIdentification == null) {
+            for (int status = 0; status < STATUSES.length; status++) {
+                for (int method = 0; method < METHODS.length; method++) {
+                    rowCounts[status][method] = counts[status][method].sum();
+                    rowCents[status][method] = cents[status][method].sum();
+                }
+            }
+        } else {
+            List<PaymentTotalsView> rows = paymentShards.callOn(
+                    paymentShards.shardOf(userIdentification),
+                    () -> paymentSummaryRepository.findTotalsByUserIdentification(userIdentification)
+            );
+            for (PaymentTotalsView row : rows) {
+                rowCounts[row.getStatus().ordinal()][row.getMethod().ordinal()] = row.getPaymentCount();
+                rowCents[row.getStatus().ordinal()][row.getMethod().ordinal()] = toCents(row.getTotalValue());
+            }
+        }
+
+        return toDto(userIdentification, rowCounts, rowCents);
+
+    }
+
+    @Override
+    public PaymentSummaryDto rebuildSummary() {
+
+        rebuildLock.writeLock().lock();
+
+        try {
+            resetCounters();
+            paymentShards.forEachShard(shard -> transactionTemplate.executeWithoutResult(status -> {
+                paymentSummaryRepository.deleteAllRows();
+                paymentSummaryRepository.insertFromPayments();
+                addCounters(paymentSummaryRepository.findOverallTotals());
+            }));
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+
+        return getSummary(null);
+
+    }
+
+    private void resetCounters() {
+        for (int status = 0; status < STATUSES.length; status++) {
+            for (int method = 0; method < METHODS.length; method++) {
+                counts[status][method].reset();
+                cents[status][method].reset();
+            }
+        }
+    }
+
+    private void addCounters(List<PaymentTotalsView> totals) {
+        for (PaymentTotalsView row : totals) {
+            counts[row.getStatus().ordinal()][row.getMethod().ordinal()].add(row.getPaymentCount());
+            cents[row.getStatus().ordinal()][row.getMethod().ordinal()].add(toCents(row.getTotalValue()));
+        }
+    }
+
+    private static PaymentSummaryDto toDto(String userIdentification, long[][] rowCounts, long[][] rowCents) {
+
+        Map<PaymentStatus, PaymentTotalsDto> byStatus = new EnumMap<>(PaymentStatus.class);
+        Map<PaymentMethod, PaymentTotalsDto> byMethod = new EnumMap<>(PaymentMethod.class);
+
+        long totalCount = 0;
+        long totalCents = 0;
+
+        for (PaymentStatus status : STATUSES) {
+            long statusCount = 0;
+            long statusCents = 0;
+            for (PaymentMethod method : METHODS) {
+                statusCount += rowCounts[status.ordinal()][method.ordinal()];
+                statusCents += rowCents[status.ordinal()][method.ordinal()];
+            }
+            byStatus.put(status, totals(statusCount, statusCents));
+            totalCount += statusCount;
+            totalCents += statusCents;
+        }
+
+        for (PaymentMethod method : METHODS) {
+            long methodCount = 0;
+            long methodCents = 0;
+            for (PaymentStatus status : STATUSES) {
+                methodCount += rowCounts[status.ordinal()][method.ordinal()];
+                methodCents += rowCents[status.ordinal()][method.ordinal()];
+            }
+            byMethod.put(method, totals(methodCount, methodCents));
+        }
+
+        return new PaymentSummaryDto(userIdentification, totals(totalCount, totalCents), byStatus, byMethod);
+
+    }
+
+    private static PaymentTotalsDto totals(long count, long valueInCents) {
+        return new PaymentTotalsDto(count, BigDecimal.valueOf(valueInCents, 2));
+    }
+
+    private static long toCents(BigDecimal value) {
+        return value == null ? 0 : value.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static LongAdder[][] newCounters() {
+
+        LongAdder[][] counters = new LongAdder[STATUSES.length][METHODS.length];
+
+        for (LongAdder[] row : counters) {
+            for (int method = 0; method < row.length; method++) {
+                row[method] = new LongAdder();
+            }
+        }
+
+        return counters;
+
+    }
+
+    private final class PendingDeltas implements TransactionSynchronization {
+
+        // row -> {count, cents}
+        private final Map<PaymentSummaryId, long[]> deltas = new TreeMap<>(ROW_ORDER);
+
+        private boolean readLocked;
+
+        void add(String userIdentification, PaymentStatus status, PaymentMethod method, long count, long valueInCents) {
+            long[] delta = deltas.computeIfAbsent(
+                    new PaymentSummaryId(userIdentification, status, method),
+                    id -> new long[2]
+            );
+            delta[0] += count;
+            delta[1] += valueInCents;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+
+            rebuildLock.readLock().lock();
+            readLocked = true;
+
+            deltas.forEach((id, delta) -> {
+                if (delta[0] != 0 || delta[1] != 0) {
+                    paymentSummaryRepository.increment(id, delta[0], BigDecimal.valueOf(delta[1], 2));
+                }
+            });
+
+        }
+
+        @Override
+        public void afterCommit() {
+            deltas.forEach((id, delta) -> {
+                counts[id.getStatus().ordinal()][id.getMethod().ordinal()].add(delta[0]);
+                cents[id.getStatus().ordinal()][id.getMethod().ordinal()].add(delta[1]);
+            });
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+
+            TransactionSynchronizationManager.unbindResourceIfPossible(PaymentSummaryServiceImpl.this);
+
+            if (readLocked) {
+                rebuildLock.readLock().unlock();
+            }
+
+        }
+
+    }
+
+}
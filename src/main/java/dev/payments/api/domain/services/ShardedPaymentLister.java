@@ -0,0 +1,154 @@
+package dev.payments.api.domain.services;
+
+import dev.payments.api.domain.repositories.PaymentKeysetRow;
+import dev.payments.api.domain.repositories.PaymentRepository;
+import dev.payments.api.domain.repositories.PaymentSortKeyRow;
+import dev.payments.api.infrastructure.sharding.PaymentShards;
+import dev.payments.api.infrastructure.sharding.SortedRuns;
+import dev.payments.api.presentation.dtos.PaymentDto;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Lists payments across all shards for filters that do not pin a single user.
+ * <p>
+ * Every shard is queried in parallel for the first offset + size rows of the page, in
+ * the requested order with the id as a tie-breaker, and the runs are merged k-way, so
+ * deep offsets cost every shard the whole prefix. Keyset slices only read size + 1 rows
+ * from each shard; exports walk the shards together one merged slice at a time.
+ */
+class ShardedPaymentLister {
+
+    private static final int EXPORT_SLICE_SIZE = 1000;
+
+    private static final Comparator<PaymentKeysetRow> KEYSET_ORDER = Comparator
+            .comparing(PaymentKeysetRow::createdAt)
+            .thenComparing((left, right) -> compareIds(left.payment().id(), right.payment().id()));
+
+    private final PaymentRepository paymentRepository;
+
+    private final PaymentShards paymentShards;
+
+    ShardedPaymentLister(PaymentRepository paymentRepository, PaymentShards paymentShards) {
+        this.paymentRepository = paymentRepository;
+        this.paymentShards = paymentShards;
+    }
+
+    <T> Page<PaymentDto> findPage(Class<T> source, Specification<T> specification, Pageable pageable) {
+
+        Pageable shardPageable = pageable.isPaged()
+                ? PageRequest.of(0, (int) Math.min(Integer.MAX_VALUE, pageable.getOffset() + pageable.getPageSize()), pageable.getSort())
+                : pageable;
+
+        List<Page<PaymentSortKeyRow>> shardPages = paymentShards.scatter(
+                shard -> paymentRepository.findPaymentDtosWithSortKeys(source, specification, shardPageable)
+        );
+
+        List<List<PaymentSortKeyRow>> runs = shardPages.stream().map(Page::getContent).toList();
+        long total = shardPages.stream().mapToLong(Page::getTotalElements).sum();
+
+        List<PaymentSortKeyRow> rows = pageable.isPaged()
+                ? SortedRuns.merge(runs, sortKeyOrder(pageable.getSort()), pageable.getOffset(), pageable.getPageSize())
+                : SortedRuns.merge(runs, sortKeyOrder(pageable.getSort()), 0, Integer.MAX_VALUE);
+
+        return new PageImpl<>(rows.stream().map(PaymentSortKeyRow::payment).toList(), pageable, total);
+
+    }
+
+    <T> List<PaymentKeysetRow> findAfter(Class<T> source, Specification<T> specification, Date createdAt, UUID id, int limit) {
+
+        List<List<PaymentKeysetRow>> runs = paymentShards.scatter(
+                shard -> paymentRepository.findPaymentDtosAfter(source, specification, createdAt, id, limit)
+        );
+
+        return SortedRuns.merge(runs, KEYSET_ORDER, 0, limit);
+
+    }
+
+    <T> void forEach(Class<T> source, Specification<T> specification, Consumer<PaymentDto> consumer) {
+
+        Date createdAt = null;
+        UUID id = null;
+
+        while (true) {
+
+            List<PaymentKeysetRow> slice = findAfter(source, specification, createdAt, id, EXPORT_SLICE_SIZE);
+
+            slice.forEach(row -> consumer.accept(row.payment()));
+
+            if (slice.size() < EXPORT_SLICE_SIZE) {
+                return;
+            }
+
+            PaymentKeysetRow last = slice.get(slice.size() - 1);
+            createdAt = last.createdAt();
+            id = last.payment().id();
+
+        }
+
+    }
+
+    // The repository appends the id to the sort unless it is already there.
+    private static Comparator<PaymentSortKeyRow> sortKeyOrder(Sort sort) {
+
+        List<Sort.Direction> directions = new ArrayList<>();
+        sort.forEach(order -> directions.add(order.getDirection()));
+
+        if (sort.getOrderFor("id") == null) {
+            directions.add(Sort.Direction.ASC);
+        }
+
+        return (left, right) -> {
+            for (int key = 0; key < directions.size(); key++) {
+                int result = compareValues(left.sortKeys().get(key), right.sortKeys().get(key));
+                if (result != 0) {
+                    return directions.get(key).isAscending() ? result : -result;
+                }
+            }
+            return 0;
+        };
+
+    }
+
+    // Mirrors how the database orders these values: nulls low, UUIDs as unsigned bytes
+    // and enums, which are stored as strings, by name.
+    @SuppressWarnings("unchecked")
+    private static int compareValues(Object left, Object right) {
+
+        if (left == right) {
+            return 0;
+        }
+        if (left == null) {
+            return -1;
+        }
+        if (right == null) {
+            return 1;
+        }
+        if (left instanceof UUID leftId && right instanceof UUID rightId) {
+            return compareIds(leftId, rightId);
+        }
+        if (left instanceof Enum<?> leftEnum && right instanceof Enum<?> rightEnum) {
+            return leftEnum.name().compareTo(rightEnum.name());
+        }
+
+        return ((Comparable<Object>) left).compareTo(right);
+
+    }
+
+    private static int compareIds(UUID left, UUID right) {
+        int result = Long.compareUnsigned(left.getMostSignificantBits(), right.getMostSignificantBits());
+        return result != 0 ? result : Long.compareUnsigned(left.getLeastSignificantBits(), right.getLeastSignificantBits());
+    }
+
+}
@@ -0,0 +1,51 @@
+package dev.payments.api.infrastructure.archive;
+
+import dev.payments.api.domain.repositories.ArchivedPaymentRepository;
+import dev.payments.api.domain.repositories.PaymentRepository;
+import dev.payments.api.infrastructure.sharding.PaymentShards;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+
+/**
+ * Archives old final payments once {@code payments.archive.enabled} is set to true. It is
+ * off by default because archiving moves rows out of the payments table: archived payments
+ * are still found by id, but listings only return them when asked to include archived ones.
+ */
+@Configuration
+@EnableScheduling
+public class ArchiveConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(name = "payments.archive.enabled", havingValue = "true")
+    public PaymentArchiver paymentArchiver(
+            PaymentRepository paymentRepository,
+            ArchivedPaymentRepository archivedPaymentRepository,
+            PlatformTransactionManager transactionManager,
+            PaymentShards paymentShards,
+            MeterRegistry meterRegistry,
+            @Value("${payments.archive.after:P30D}") Duration archiveAfter,
+            @Value("${payments.archive.chunk-size:500}") int chunkSize,
+            @Value("${payments.archive.max-chunks-per-run:20}") int maxChunksPerRun,
+            @Value("${payments.archive.pause:PT0.05S}") Duration pause
+    ) {
+        return new PaymentArchiver(
+                paymentRepository,
+                archivedPaymentRepository,
+                transactionManager,
+                paymentShards,
+                meterRegistry,
+                archiveAfter,
+                chunkSize,
+                maxChunksPerRun,
+                pause
+        );
+    }
+
+}
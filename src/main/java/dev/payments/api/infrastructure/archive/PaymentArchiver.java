@@ -0,0 +1,150 @@
+package dev.payments.api.infrastructure.archive;
+
+import dev.payments.api.domain.entities.PaymentStatus;
+import dev.payments.api.domain.repositories.ArchivedPaymentRepository;
+import dev.payments.api.domain.repositories.PaymentRepository;
+import dev.payments.api.domain.services.PaymentStateMachine;
+import dev.payments.api.infrastructure.sharding.PaymentShards;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Moves final payments older than a threshold from the payments table to the archive:
+ * first those in a terminal status, then the cancelled ones.
+ * <p>
+ * Each chunk is selected through the status index, copied with one INSERT ... SELECT and
+ * deleted in one statement, all in a short transaction of its own. Final rows never
+ * change again, so nothing races the move. Chunks are throttled and a run stops after a
+ * bounded number of them. Shards are archived one after the other, each with its own
+ * chunk budget.
+ */
+public class PaymentArchiver {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PaymentArchiver.class);
+
+    private static final List<PaymentStatus> ANY_STATUS = List.of(PaymentStatus.values());
+
+    private final PaymentRepository paymentRepository;
+
+    private final ArchivedPaymentRepository archivedPaymentRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final PaymentShards paymentShards;
+
+    private final Duration archiveAfter;
+
+    private final int chunkSize;
+
+    private final int maxChunksPerRun;
+
+    private final Duration pause;
+
+    private final Counter archivedTerminal;
+
+    private final Counter archivedCancelled;
+
+    public PaymentArchiver(
+            PaymentRepository paymentRepository,
+            ArchivedPaymentRepository archivedPaymentRepository,
+            PlatformTransactionManager transactionManager,
+            PaymentShards paymentShards,
+            MeterRegistry meterRegistry,
+            Duration archiveAfter,
+            int chunkSize,
+            int maxChunksPerRun,
+            Duration pause
+    ) {
+        this.paymentRepository = paymentRepository;
+        this.archivedPaymentRepository = archivedPaymentRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.paymentShards = paymentShards;
+        this.archiveAfter = archiveAfter;
+        this.chunkSize = chunkSize;
+        this.maxChunksPerRun = maxChunksPerRun;
+        this.pause = pause;
+
+        this.archivedTerminal = archivedCounter("terminal", meterRegistry);
+        this.archivedCancelled = archivedCounter("cancelled", meterRegistry);
+    }
+
+    @Scheduled(
+            initialDelayString = "${payments.archive.interval:PT5M}",
+            fixedDelayString = "${payments.archive.interval:PT5M}"
+    )
+    public void archive() {
+        Date cutoff = Date.from(Instant.now().minus(archiveAfter));
+        paymentShards.forEachShard(shard -> archive(cutoff));
+    }
+
+    private void archive(Date cutoff) {
+
+        int chunksLeft = archive(PaymentStateMachine.terminalStatuses(), false, cutoff, maxChunksPerRun, archivedTerminal);
+        chunksLeft = archive(ANY_STATUS, true, cutoff, chunksLeft, archivedCancelled);
+
+        if (chunksLeft == 0) {
+            LOGGER.info("Payment archiving stopped after {} chunks, resuming on the next run", maxChunksPerRun);
+        }
+
+    }
+
+    private int archive(List<PaymentStatus> statuses, boolean cancelled, Date cutoff, int chunksLeft, Counter archived) {
+
+        while (chunksLeft > 0) {
+
+            chunksLeft--;
+
+            Integer movedCount = transactionTemplate.execute(status -> {
+
+                List<UUID> ids = paymentRepository.findArchivableIds(statuses, cancelled, cutoff, PageRequest.of(0, chunkSize));
+
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+
+                archivedPaymentRepository.copyFromPayments(ids);
+                paymentRepository.deleteAllByIdInBatch(ids);
+
+                return ids.size();
+
+            });
+
+            archived.increment(movedCount);
+
+            if (movedCount < chunkSize) {
+                return chunksLeft + 1;
+            }
+
+            try {
+                Thread.sleep(pause.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return 0;
+            }
+
+        }
+
+        return 0;
+
+    }
+
+    private static Counter archivedCounter(String kind, MeterRegistry meterRegistry) {
+        return Counter.builder("payments.archived")
+                .description("Final payments moved to the archive table")
+                .tag("kind", kind)
+                .register(meterRegistry);
+    }
+
+}
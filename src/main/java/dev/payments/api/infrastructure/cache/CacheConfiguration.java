@@ -0,0 +1,30 @@
+package dev.payments.api.infrastructure.cache;
+
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfiguration {
+
+    // Evictions issued inside a transaction are deferred until it commits, so a reader
+    // cannot re-cache the old row between the eviction and the commit of the write.
+    @Bean
+    public CacheManager cacheManager(CacheProperties cacheProperties) {
+
+        var caffeineCacheManager = new CaffeineCacheManager();
+        caffeineCacheManager.setCacheSpecification(cacheProperties.getCaffeine().getSpec());
+        caffeineCacheManager.setCacheNames(cacheProperties.getCacheNames());
+
+        return new TransactionAwareCacheManagerProxy(caffeineCacheManager);
+
+    }
+
+}
@@ -0,0 +1,59 @@
+package dev.payments.api.infrastructure.coalescing;
+
+import dev.payments.api.presentation.services.PaymentService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.NameMatchMethodPointcut;
+import org.springframework.aop.support.RootClassFilter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+/**
+ * Coalesces identical concurrent payment listings unless {@code payments.coalescing.enabled}
+ * is false. A {@code payments.coalescing.ttl} of zero only shares running queries; a
+ * positive one also keeps each page for that long.
+ */
+@Configuration
+@ConditionalOnProperty(name = "payments.coalescing.enabled", havingValue = "true", matchIfMissing = true)
+public class CoalescingConfiguration {
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static PaymentListingCoalescer paymentListingCoalescer(
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${payments.coalescing.ttl:PT1S}") Duration ttl,
+            @Value("${payments.coalescing.max-size:1000}") long maxSize
+    ) {
+        return new PaymentListingCoalescer(meterRegistry, ttl, maxSize);
+    }
+
+    // Ordered right after the timing advice, so coalesced calls are still timed, and
+    // ahead of the transaction advice, so callers that join never open a transaction.
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor paymentListingCoalescingAdvisor(PaymentListingCoalescer paymentListingCoalescer) {
+
+        var getPayments = new NameMatchMethodPointcut();
+        getPayments.setMappedName("getPayments");
+
+        var advisor = new DefaultPointcutAdvisor(
+                new ComposablePointcut(new RootClassFilter(PaymentService.class), getPayments),
+                paymentListingCoalescer
+        );
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+
+        return advisor;
+
+    }
+
+}
@@ -0,0 +1,216 @@
+package dev.payments.api.infrastructure.coalescing;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.payments.api.domain.events.PaymentChangedEvent;
+import dev.payments.api.infrastructure.routing.ReadWriteRoutingDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lets identical concurrent {@code PaymentService.getPayments} calls, keyed by their
+ * filter and pageable, share one execution of the page query and its COUNT.
+ * <p>
+ * The first caller runs the query while later callers with the same key wait on its
+ * future. With a positive TTL the page is also kept for that long, so a refresh storm
+ * spread over a few hundred milliseconds still hits the database once. Any committed
+ * payment change drops the kept pages and detaches the flights already running, so
+ * callers arriving after a write never get a page read before it. Changes made by other
+ * instances, and archiving, which changes no payment, are only seen once the TTL expires.
+ * <p>
+ * Calls pinned to the primary by read-your-writes bypass coalescing altogether: a shared
+ * flight or kept page may have been read from a lagging replica.
+ */
+public class PaymentListingCoalescer implements MethodInterceptor {
+
+    private final Map<List<Object>, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final Cache<List<Object>, Object> recentPages;
+
+    private final boolean caching;
+
+    // Bumped by every committed change; a page is only kept if none happened while it ran.
+    private final AtomicLong generation = new AtomicLong();
+
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private volatile Counters counters;
+
+    public PaymentListingCoalescer(ObjectProvider<MeterRegistry> meterRegistryProvider, Duration ttl, long maxSize) {
+        this.meterRegistryProvider = meterRegistryProvider;
+        this.caching = !ttl.isNegative() && !ttl.isZero();
+        this.recentPages = Caffeine.newBuilder()
+                .expireAfterWrite(caching ? ttl : Duration.ofNanos(1))
+                .maximumSize(caching ? maxSize : 0)
+                .build();
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+
+        if (ReadWriteRoutingDataSource.isPinnedToPrimary()) {
+            counters().bypassed.increment();
+            return invocation.proceed();
+        }
+
+        List<Object> key = Arrays.asList(invocation.getArguments());
+
+        Object page = recentPages.getIfPresent(key);
+
+        if (page != null) {
+            counters().cached.increment();
+            return page;
+        }
+
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> runningFlight = inFlight.putIfAbsent(key, flight);
+
+        if (runningFlight != null) {
+            counters().joined.increment();
+            return await(runningFlight);
+        }
+
+        counters().executed.increment();
+        long startGeneration = generation.get();
+
+        try {
+            Object result = invocation.proceed();
+            if (caching && result != null && generation.get() == startGeneration) {
+                recentPages.put(key, result);
+            }
+            flight.complete(result);
+            return result;
+        } catch (Throwable e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+
+    }
+
+    // The first change a transaction publishes registers one invalidation for its commit,
+    // so a bulk write drops the kept pages once rather than once per payment, and rolled
+    // back changes invalidate nothing.
+    @EventListener
+    public void onPaymentChanged(PaymentChangedEvent event) {
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate();
+            return;
+        }
+
+        if (TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+
+        PendingInvalidation pending = new PendingInvalidation();
+        TransactionSynchronizationManager.bindResource(this, pending);
+        TransactionSynchronizationManager.registerSynchronization(pending);
+
+    }
+
+    private void invalidate() {
+        generation.incrementAndGet();
+        inFlight.clear();
+        recentPages.invalidateAll();
+    }
+
+    private static Object await(CompletableFuture<Object> flight) throws Throwable {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            throw e.getCause() == null ? e : e.getCause();
+        }
+    }
+
+    // The registry is resolved lazily because advisors are created before the
+    // post-processors that configure it.
+    private Counters counters() {
+
+        Counters current = counters;
+
+        if (current == null) {
+            synchronized (this) {
+                if (counters == null) {
+                    counters = new Counters(meterRegistryProvider.getObject());
+                }
+                current = counters;
+            }
+        }
+
+        return current;
+
+    }
+
+    /**
+     * Marks a transaction that changed payments, bound to it under this coalescer. It
+     * follows its transaction through suspension, so a nested REQUIRES_NEW transaction
+     * invalidates on its own commit.
+     */
+    private final class PendingInvalidation implements TransactionSynchronization {
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(PaymentListingCoalescer.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(PaymentListingCoalescer.this, this);
+        }
+
+        @Override
+        public void afterCommit() {
+            invalidate();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(PaymentListingCoalescer.this);
+        }
+
+    }
+
+    private static final class Counters {
+
+        private final Counter executed;
+
+        private final Counter joined;
+
+        private final Counter cached;
+
+        private final Counter bypassed;
+
+        private Counters(MeterRegistry meterRegistry) {
+            this.executed = counter(meterRegistry, "executed");
+            this.joined = counter(meterRegistry, "joined");
+            this.cached = counter(meterRegistry, "cached");
+            this.bypassed = counter(meterRegistry, "bypassed");
+        }
+
+        private static Counter counter(MeterRegistry meterRegistry, String outcome) {
+            return Counter.builder("payments.listing.requests")
+                    .description("Payment listing calls by whether they queried the database, joined a running query, were served a kept page or bypassed coalescing")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry);
+        }
+
+    }
+
+}
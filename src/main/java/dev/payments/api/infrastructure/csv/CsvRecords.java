@@ -0,0 +1,132 @@
+package dev.payments.api.infrastructure.csv;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes and reads CSV fields the way payment exports and imports share them: fields
+ * containing a comma, a quote or a line break are quoted, and quotes inside them are doubled. A quoted field may
+ * span lines, so records are counted separately from lines.
+ */
+public final class CsvRecords {
+
+    private final Reader reader;
+
+    private long line = 1;
+
+    private long recordLine;
+
+    private int pending = -2;
+
+    public CsvRecords(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Quotes the value when it needs to be, mapping null to an empty field.
+     */
+    public static String quote(String value) {
+
+        if (value == null) {
+            return "";
+        }
+
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+
+        return '"' + value.replace("\"", "\"\"") + '"';
+
+    }
+
+    /**
+     * @return the fields of the next record, or null at the end of the input
+     * @throws IllegalArgumentException if a quoted field is not closed before the end of the input
+     */
+    public List<String> next() throws IOException {
+
+        int c = read();
+
+        if (c < 0) {
+            return null;
+        }
+
+        recordLine = line;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        while (true) {
+
+            if (quoted) {
+                if (c < 0) {
+                    throw new IllegalArgumentException("Aspas não fechadas no registro da linha " + recordLine + "!");
+                }
+                if (c == '"') {
+                    int following = read();
+                    if (following == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        unread(following);
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c < 0 || c == '\n' || c == '\r') {
+                if (c == '\r') {
+                    int following = read();
+                    if (following != '\n') {
+                        unread(following);
+                    }
+                }
+                if (c >= 0) {
+                    line++;
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+
+            c = read();
+
+        }
+
+    }
+
+    /**
+     * @return the line on which the record last returned by {@link #next()} starts
+     */
+    public long recordLine() {
+        return recordLine;
+    }
+
+    private int read() throws IOException {
+
+        if (pending != -2) {
+            int c = pending;
+            pending = -2;
+            return c;
+        }
+
+        return reader.read();
+
+    }
+
+    private void unread(int c) {
+        pending = c;
+    }
+
+}
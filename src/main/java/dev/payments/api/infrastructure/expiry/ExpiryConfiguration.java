@@ -0,0 +1,60 @@
+package dev.payments.api.infrastructure.expiry;
+
+import dev.payments.api.domain.repositories.PaymentRepository;
+import dev.payments.api.infrastructure.metrics.PaymentMetrics;
+import dev.payments.api.infrastructure.sharding.PaymentShards;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+
+/**
+ * Expires stale PENDING payments once {@code payments.expiry.enabled} is set to true. It is
+ * off by default because expiring changes payments that clients may still be waiting on:
+ * each expired payment is failed or cancelled, per {@code payments.expiry.action}, with
+ * the same events, outbox rows and summary updates as any other write.
+ */
+@Configuration
+@EnableScheduling
+public class ExpiryConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(name = "payments.expiry.enabled", havingValue = "true")
+    public PaymentExpirer paymentExpirer(
+            PaymentRepository paymentRepository,
+            ApplicationEventPublisher eventPublisher,
+            PaymentMetrics paymentMetrics,
+            CacheManager cacheManager,
+            PlatformTransactionManager transactionManager,
+            PaymentShards paymentShards,
+            MeterRegistry meterRegistry,
+            @Value("${payments.expiry.action:FAIL}") PaymentExpiryAction action,
+            @Value("${payments.expiry.ttl:PT24H}") Duration ttl,
+            @Value("${payments.expiry.chunk-size:200}") int chunkSize,
+            @Value("${payments.expiry.max-chunks-per-run:50}") int maxChunksPerRun,
+            @Value("${payments.expiry.pause:PT0.05S}") Duration pause
+    ) {
+        return new PaymentExpirer(
+                paymentRepository,
+                eventPublisher,
+                paymentMetrics,
+                cacheManager.getCache("payments"),
+                transactionManager,
+                paymentShards,
+                meterRegistry,
+                action,
+                ttl,
+                chunkSize,
+                maxChunksPerRun,
+                pause
+        );
+    }
+
+}
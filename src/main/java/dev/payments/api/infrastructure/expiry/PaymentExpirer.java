@@ -0,0 +1,229 @@
+package dev.payments.api.infrastructure.expiry;
+
+import dev.payments.api.domain.entities.PaymentStatus;
+import dev.payments.api.domain.events.PaymentChangedEvent;
+import dev.payments.api.domain.repositories.PaymentRepository;
+import dev.payments.api.domain.repositories.StalePaymentView;
+import dev.payments.api.infrastructure.metrics.PaymentMetrics;
+import dev.payments.api.infrastructure.sharding.PaymentShards;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Expires payments that stayed PENDING longer than the TTL, either failing or cancelling
+ * them, from a single scheduler thread.
+ * <p>
+ * Each run walks the stale PENDING rows in (createdAt, id) order from a watermark, one
+ * chunk per short transaction, pausing between chunks and stopping after a bounded
+ * number of them. Expired rows leave the PENDING range of the index, so a run only
+ * reads rows that are still stale and never the rest of the table.
+ * <p>
+ * A chunk is expired with one guarded UPDATE. If a concurrent writer changed any of its
+ * rows first, that UPDATE is rolled back and the chunk is redone row by row against the
+ * versions read, so every payment gets exactly one change event from whoever won.
+ * <p>
+ * Shards are expired one after the other, each with its own chunk budget.
+ */
+public class PaymentExpirer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PaymentExpirer.class);
+
+    private static final List<PaymentStatus> PENDING_ONLY = List.of(PaymentStatus.PENDING);
+
+    private static final Date START_CREATED_AT = new Date(0);
+
+    private static final UUID START_ID = new UUID(0, 0);
+
+    private final PaymentRepository paymentRepository;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final PaymentMetrics paymentMetrics;
+
+    private final Cache paymentCache;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final PaymentShards paymentShards;
+
+    private final PaymentExpiryAction action;
+
+    private final Duration ttl;
+
+    private final int chunkSize;
+
+    private final int maxChunksPerRun;
+
+    private final Duration pause;
+
+    private final Counter expiredPayments;
+
+    public PaymentExpirer(
+            PaymentRepository paymentRepository,
+            ApplicationEventPublisher eventPublisher,
+            PaymentMetrics paymentMetrics,
+            Cache paymentCache,
+            PlatformTransactionManager transactionManager,
+            PaymentShards paymentShards,
+            MeterRegistry meterRegistry,
+            PaymentExpiryAction action,
+            Duration ttl,
+            int chunkSize,
+            int maxChunksPerRun,
+            Duration pause
+    ) {
+        this.paymentRepository = paymentRepository;
+        this.eventPublisher = eventPublisher;
+        this.paymentMetrics = paymentMetrics;
+        this.paymentCache = paymentCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.paymentShards = paymentShards;
+        this.action = action;
+        this.ttl = ttl;
+        this.chunkSize = chunkSize;
+        this.maxChunksPerRun = maxChunksPerRun;
+        this.pause = pause;
+
+        this.expiredPayments = Counter.builder("payments.expired")
+                .description("PENDING payments expired after the TTL")
+                .tag("action", action.name())
+                .register(meterRegistry);
+    }
+
+    @Scheduled(
+            initialDelayString = "${payments.expiry.interval:PT1M}",
+            fixedDelayString = "${payments.expiry.interval:PT1M}"
+    )
+    public void expire() {
+        Date cutoff = Date.from(Instant.now().minus(ttl));
+        paymentShards.forEachShard(shard -> expire(cutoff));
+    }
+
+    private void expire(Date cutoff) {
+
+        Date afterCreatedAt = START_CREATED_AT;
+        UUID afterId = START_ID;
+
+        for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+
+            List<StalePaymentView> stale = paymentRepository.findStalePayments(
+                    PaymentStatus.PENDING,
+                    cutoff,
+                    afterCreatedAt,
+                    afterId,
+                    PageRequest.of(0, chunkSize)
+            );
+
+            if (stale.isEmpty()) {
+                return;
+            }
+
+            expireChunk(stale);
+
+            if (stale.size() < chunkSize) {
+                return;
+            }
+
+            StalePaymentView last = stale.get(stale.size() - 1);
+            afterCreatedAt = last.getCreatedAt();
+            afterId = last.getId();
+
+            try {
+                Thread.sleep(pause.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+        }
+
+        LOGGER.info("Payment expiry stopped after {} chunks, resuming on the next run", maxChunksPerRun);
+
+    }
+
+    private void expireChunk(List<StalePaymentView> stale) {
+
+        List<UUID> ids = stale.stream().map(StalePaymentView::getId).toList();
+
+        Boolean expiredInBulk = transactionTemplate.execute(status -> {
+
+            int expiredCount = action == PaymentExpiryAction.CANCEL
+                    ? paymentRepository.cancelByIdIn(ids, PENDING_ONLY)
+                    : paymentRepository.updateStatusByIdIn(ids, PENDING_ONLY, PaymentStatus.FAILED);
+
+            if (expiredCount != ids.size()) {
+                status.setRollbackOnly();
+                return false;
+            }
+
+            stale.forEach(this::recordExpiry);
+            return true;
+
+        });
+
+        if (Boolean.TRUE.equals(expiredInBulk)) {
+            return;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            for (StalePaymentView payment : stale) {
+
+                int expiredCount = action == PaymentExpiryAction.CANCEL
+                        ? paymentRepository.cancel(payment.getId(), payment.getVersion(), PENDING_ONLY)
+                        : paymentRepository.updateStatus(payment.getId(), payment.getVersion(), PENDING_ONLY, PaymentStatus.FAILED);
+
+                if (expiredCount == 1) {
+                    recordExpiry(payment);
+                }
+
+            }
+        });
+
+    }
+
+    private void recordExpiry(StalePaymentView payment) {
+
+        if (action == PaymentExpiryAction.CANCEL) {
+            eventPublisher.publishEvent(PaymentChangedEvent.cancelled(
+                    payment.getId(),
+                    payment.getDebitCode(),
+                    payment.getUserIdentification(),
+                    payment.getMethod(),
+                    payment.getPaymentValue(),
+                    payment.getStatus()
+            ));
+            paymentMetrics.recordCancellation(payment.getStatus());
+        } else {
+            eventPublisher.publishEvent(PaymentChangedEvent.statusChanged(
+                    payment.getId(),
+                    payment.getDebitCode(),
+                    payment.getUserIdentification(),
+                    payment.getMethod(),
+                    payment.getPaymentValue(),
+                    payment.getStatus(),
+                    PaymentStatus.FAILED
+            ));
+            paymentMetrics.recordTransition(payment.getStatus(), PaymentStatus.FAILED, 1);
+        }
+
+        // Deferred until commit by the transaction-aware cache manager.
+        paymentCache.evict(payment.getId());
+        expiredPayments.increment();
+
+    }
+
+}
@@ -0,0 +1,6 @@
+package dev.payments.api.infrastructure.expiry;
+
+public enum PaymentExpiryAction {
+    FAIL,
+    CANCEL
+}
@@ -0,0 +1,86 @@
+package dev.payments.api.infrastructure.hibernate;
+
+import dev.payments.api.infrastructure.sharding.ShardRoutingDataSource;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates UUIDv7 identifiers (RFC 9562): a 48-bit Unix millisecond timestamp followed
+ * by a 12-bit counter and 62 random bits.
+ * <p>
+ * The timestamp and counter are advanced together with a compare-and-set, so ids are
+ * strictly increasing within the JVM even when many are created in the same millisecond.
+ * When the counter overflows it borrows the next millisecond instead of wrapping.
+ * New rows therefore land at the right edge of the primary key index.
+ * <p>
+ * Rows written while a shard is bound keep the shard number in their last 8 random bits,
+ * so the id alone tells which shard holds the row.
+ */
+public class TimeOrderedUuidGenerator implements IdentifierGenerator {
+
+    private static final int COUNTER_BITS = 12;
+
+    private static final long VERSION_7 = 0x7000L;
+
+    private static final long VARIANT_RFC_4122 = 0x8000000000000000L;
+
+    private static final long RANDOM_MASK = 0x3FFFFFFFFFFFFFFFL;
+
+    private static final long SHARD_MASK = 0xFFL;
+
+    public static final int MAX_SHARDS = (int) SHARD_MASK + 1;
+
+    private static final AtomicLong LAST_TIMESTAMP_AND_COUNTER = new AtomicLong();
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+
+        Integer shard = ShardRoutingDataSource.currentShard();
+
+        return shard == null ? nextUuid() : nextUuid(shard);
+
+    }
+
+    public static UUID nextUuid(int shard) {
+        UUID uuid = nextUuid();
+        return new UUID(uuid.getMostSignificantBits(), (uuid.getLeastSignificantBits() & ~SHARD_MASK) | shard);
+    }
+
+    public static int shardOf(UUID id) {
+        return (int) (id.getLeastSignificantBits() & SHARD_MASK);
+    }
+
+    public static UUID nextUuid() {
+
+        long timestampAndCounter = nextTimestampAndCounter(System.currentTimeMillis());
+
+        long millis = timestampAndCounter >>> COUNTER_BITS;
+        long counter = timestampAndCounter & ((1L << COUNTER_BITS) - 1);
+
+        long mostSignificantBits = (millis << 16) | VERSION_7 | counter;
+        long leastSignificantBits = VARIANT_RFC_4122 | (ThreadLocalRandom.current().nextLong() & RANDOM_MASK);
+
+        return new UUID(mostSignificantBits, leastSignificantBits);
+
+    }
+
+    private static long nextTimestampAndCounter(long currentMillis) {
+
+        long candidate = currentMillis << COUNTER_BITS;
+
+        while (true) {
+            long last = LAST_TIMESTAMP_AND_COUNTER.get();
+            long next = candidate > last ? candidate : last + 1;
+
+            if (LAST_TIMESTAMP_AND_COUNTER.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+
+    }
+
+}
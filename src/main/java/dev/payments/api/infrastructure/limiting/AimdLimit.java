@@ -0,0 +1,104 @@
+package dev.payments.api.infrastructure.limiting;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that adapts with additive increase and multiplicative decrease.
+ * <p>
+ * Calls beyond the limit are refused immediately rather than queued. Each completed call
+ * is a sample: one slower than the latency target, or one that failed from overload,
+ * multiplies the limit by the backoff ratio, while a fast one raises it by one as long
+ * as at least half of it was in use. As with TCP, the limit backs off at most once per
+ * round trip: only calls admitted after the last backoff can shrink it again, so a burst
+ * of slow calls that were already running does not collapse it to the minimum.
+ */
+public class AimdLimit {
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final long maxLatencyNanos;
+
+    private final double backoffRatio;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile int limit;
+
+    private long lastBackoffNanos;
+
+    private boolean backedOff;
+
+    public AimdLimit(int initialLimit, int minLimit, int maxLimit, Duration maxLatency, double backoffRatio) {
+
+        if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Expected 1 <= min <= initial <= max, got " + minLimit + ", " + initialLimit + ", " + maxLimit);
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("The backoff ratio must be between 0 and 1, got " + backoffRatio);
+        }
+
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxLatencyNanos = maxLatency.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.limit = initialLimit;
+
+    }
+
+    public boolean tryAcquire() {
+
+        while (true) {
+
+            int current = inFlight.get();
+
+            if (current >= limit) {
+                return false;
+            }
+
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+
+        }
+
+    }
+
+    /**
+     * Releases a call admitted by {@link #tryAcquire()} and feeds its outcome to the limit.
+     *
+     * @param startNanos {@link System#nanoTime()} when the call was admitted
+     * @param endNanos   {@link System#nanoTime()} when it completed
+     * @param dropped    whether it failed because the system was overloaded
+     */
+    public void release(long startNanos, long endNanos, boolean dropped) {
+
+        int inFlightBefore = inFlight.getAndDecrement();
+
+        synchronized (this) {
+
+            if (dropped || endNanos - startNanos > maxLatencyNanos) {
+                if (!backedOff || startNanos - lastBackoffNanos > 0) {
+                    limit = Math.max(minLimit, (int) (limit * backoffRatio));
+                    lastBackoffNanos = endNanos;
+                    backedOff = true;
+                }
+            } else if (inFlightBefore * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1);
+            }
+
+        }
+
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+}
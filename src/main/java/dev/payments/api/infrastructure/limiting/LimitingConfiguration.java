@@ -0,0 +1,95 @@
+package dev.payments.api.infrastructure.limiting;
+
+import dev.payments.api.presentation.controllers.PaymentController;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.NameMatchMethodPointcut;
+import org.springframework.aop.support.RootClassFilter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+
+import java.time.Duration;
+import java.util.stream.Stream;
+
+/**
+ * Sheds load on the payment API unless {@code payments.limits.enabled} is false. Reads and
+ * writes adapt their own concurrency limits between {@code min} and {@code max}, aiming for
+ * calls under {@code max-latency}; {@code payments.limits.per-user} adds a rate per user.
+ * The limits are per instance.
+ */
+@Configuration
+@ConditionalOnProperty(name = "payments.limits.enabled", havingValue = "true", matchIfMissing = true)
+public class LimitingConfiguration {
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static AimdLimit paymentReadLimit(
+            @Value("${payments.limits.reads.initial:50}") int initial,
+            @Value("${payments.limits.reads.min:5}") int min,
+            @Value("${payments.limits.reads.max:200}") int max,
+            @Value("${payments.limits.reads.max-latency:PT0.25S}") Duration maxLatency,
+            @Value("${payments.limits.backoff-ratio:0.9}") double backoffRatio
+    ) {
+        return new AimdLimit(initial, min, max, maxLatency, backoffRatio);
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static AimdLimit paymentWriteLimit(
+            @Value("${payments.limits.writes.initial:20}") int initial,
+            @Value("${payments.limits.writes.min:2}") int min,
+            @Value("${payments.limits.writes.max:100}") int max,
+            @Value("${payments.limits.writes.max-latency:PT0.5S}") Duration maxLatency,
+            @Value("${payments.limits.backoff-ratio:0.9}") double backoffRatio
+    ) {
+        return new AimdLimit(initial, min, max, maxLatency, backoffRatio);
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    @ConditionalOnProperty(name = "payments.limits.per-user.enabled", havingValue = "true")
+    public static StripedTokenBuckets paymentUserBuckets(
+            @Value("${payments.limits.per-user.stripes:1024}") int stripes,
+            @Value("${payments.limits.per-user.rate:20}") double ratePerSecond,
+            @Value("${payments.limits.per-user.burst:40}") int burst
+    ) {
+        return new StripedTokenBuckets(stripes, ratePerSecond, burst);
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor paymentApiLimitAdvisor(
+            AimdLimit paymentReadLimit,
+            AimdLimit paymentWriteLimit,
+            ObjectProvider<StripedTokenBuckets> paymentUserBuckets,
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${payments.limits.retry-after:PT1S}") Duration retryAfter
+    ) {
+
+        var limitedMethods = new NameMatchMethodPointcut();
+        limitedMethods.setMappedNames(
+                Stream.concat(PaymentApiLimitInterceptor.READS.stream(), PaymentApiLimitInterceptor.WRITES.stream())
+                        .toArray(String[]::new)
+        );
+
+        return new DefaultPointcutAdvisor(
+                new ComposablePointcut(new RootClassFilter(PaymentController.class), limitedMethods),
+                new PaymentApiLimitInterceptor(
+                        paymentReadLimit,
+                        paymentWriteLimit,
+                        paymentUserBuckets.getIfAvailable(),
+                        retryAfter,
+                        meterRegistry
+                )
+        );
+
+    }
+
+}
@@ -0,0 +1,27 @@
+package dev.payments.api.infrastructure.limiting;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+
+/**
+ * A refused call, answered with its status and a {@code Retry-After} header in whole seconds.
+ */
+class LoadSheddingException extends ResponseStatusException {
+
+    private final HttpHeaders headers = new HttpHeaders();
+
+    LoadSheddingException(HttpStatus status, String reason, Duration retryAfter) {
+        super(status, reason);
+        long seconds = Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+        headers.set(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+}
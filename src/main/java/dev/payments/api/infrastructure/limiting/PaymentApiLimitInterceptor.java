@@ -0,0 +1,179 @@
+package dev.payments.api.infrastructure.limiting;
+
+import dev.payments.api.presentation.dtos.CreatePaymentDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.lang.reflect.Parameter;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Admits {@code PaymentController} calls against separate read and write concurrency
+ * budgets and, when configured, a token bucket per {@code userIdentification}.
+ * <p>
+ * A call over its budget fails at once with 503 and a call over its user's rate with
+ * 429, both with {@code Retry-After}, before touching the database. The latency of
+ * admitted calls drives the budgets; client errors are ordinary samples, while other
+ * failures, such as an exhausted connection pool, count as overload. The user is only
+ * known to calls that carry it: creations and filtered listings.
+ */
+class PaymentApiLimitInterceptor implements MethodInterceptor {
+
+    static final Set<String> WRITES = Set.of("postPayments", "postPaymentsBatch", "putPayments", "putPaymentsBatch", "deletePayment");
+
+    static final Set<String> READS = Set.of("getPayments", "scrollPayments", "getPayment");
+
+    private final AimdLimit readLimit;
+
+    private final AimdLimit writeLimit;
+
+    private final StripedTokenBuckets userBuckets;
+
+    private final Duration retryAfter;
+
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private volatile Counters counters;
+
+    PaymentApiLimitInterceptor(
+            AimdLimit readLimit,
+            AimdLimit writeLimit,
+            StripedTokenBuckets userBuckets,
+            Duration retryAfter,
+            ObjectProvider<MeterRegistry> meterRegistryProvider
+    ) {
+        this.readLimit = readLimit;
+        this.writeLimit = writeLimit;
+        this.userBuckets = userBuckets;
+        this.retryAfter = retryAfter;
+        this.meterRegistryProvider = meterRegistryProvider;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+
+        Counters counters = counters();
+        boolean write = WRITES.contains(invocation.getMethod().getName());
+        AimdLimit limit = write ? writeLimit : readLimit;
+
+        if (userBuckets != null) {
+            String user = userOf(invocation);
+            long waitNanos = user == null ? 0 : userBuckets.tryAcquire(user, System.nanoTime());
+            if (waitNanos > 0) {
+                counters.rejectedByUser.increment();
+                throw new LoadSheddingException(
+                        HttpStatus.TOO_MANY_REQUESTS,
+                        "Limite de requisições do usuário excedido",
+                        Duration.ofNanos(waitNanos)
+                );
+            }
+        }
+
+        if (!limit.tryAcquire()) {
+            (write ? counters.rejectedWrites : counters.rejectedReads).increment();
+            throw new LoadSheddingException(
+                    HttpStatus.SERVICE_UNAVAILABLE,
+                    "Serviço sobrecarregado, tente novamente em instantes",
+                    retryAfter
+            );
+        }
+
+        long start = System.nanoTime();
+        boolean dropped = false;
+
+        try {
+            return invocation.proceed();
+        } catch (Throwable e) {
+            dropped = isOverload(e);
+            throw e;
+        } finally {
+            limit.release(start, System.nanoTime(), dropped);
+        }
+
+    }
+
+    private static boolean isOverload(Throwable e) {
+        return !(e instanceof ResponseStatusException responseStatus) || responseStatus.getStatusCode().is5xxServerError();
+    }
+
+    private static String userOf(MethodInvocation invocation) {
+
+        Parameter[] parameters = invocation.getMethod().getParameters();
+        Object[] arguments = invocation.getArguments();
+
+        for (int index = 0; index < arguments.length; index++) {
+            if (arguments[index] instanceof CreatePaymentDto createPaymentDto) {
+                return createPaymentDto.userIdentification();
+            }
+            if (arguments[index] instanceof String user && "userIdentification".equals(parameters[index].getName())) {
+                return user;
+            }
+        }
+
+        return null;
+
+    }
+
+    // The registry is resolved lazily because advisors are created before the
+    // post-processors that configure it.
+    private Counters counters() {
+
+        Counters current = counters;
+
+        if (current == null) {
+            synchronized (this) {
+                if (counters == null) {
+                    counters = new Counters(meterRegistryProvider.getObject(), readLimit, writeLimit);
+                }
+                current = counters;
+            }
+        }
+
+        return current;
+
+    }
+
+    private static final class Counters {
+
+        private final Counter rejectedReads;
+
+        private final Counter rejectedWrites;
+
+        private final Counter rejectedByUser;
+
+        private Counters(MeterRegistry meterRegistry, AimdLimit readLimit, AimdLimit writeLimit) {
+            this.rejectedReads = rejected(meterRegistry, "reads");
+            this.rejectedWrites = rejected(meterRegistry, "writes");
+            this.rejectedByUser = rejected(meterRegistry, "user");
+            gauges(meterRegistry, "reads", readLimit);
+            gauges(meterRegistry, "writes", writeLimit);
+        }
+
+        private static Counter rejected(MeterRegistry meterRegistry, String budget) {
+            return Counter.builder("payments.limits.rejected")
+                    .description("Payment API calls refused by a concurrency budget or a user rate")
+                    .tag("budget", budget)
+                    .register(meterRegistry);
+        }
+
+        private static void gauges(MeterRegistry meterRegistry, String budget, AimdLimit limit) {
+            Gauge.builder("payments.limits.limit", limit, AimdLimit::getLimit)
+                    .description("Current concurrency limit of the budget")
+                    .tag("budget", budget)
+                    .register(meterRegistry);
+            Gauge.builder("payments.limits.in-flight", limit, AimdLimit::getInFlight)
+                    .description("Calls currently admitted by the budget")
+                    .tag("budget", budget)
+                    .register(meterRegistry);
+        }
+
+    }
+
+}
@@ -0,0 +1,77 @@
+package dev.payments.api.infrastructure.limiting;
+
+/**
+ * Per-key token buckets over a fixed number of stripes, so memory stays bounded however
+ * many users call the API. Keys hashing to the same stripe share its bucket, which only
+ * ever makes the limit stricter for them; more stripes make that rarer.
+ */
+public class StripedTokenBuckets {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final Bucket[] buckets;
+
+    private final double tokensPerNano;
+
+    private final double burst;
+
+    public StripedTokenBuckets(int stripes, double ratePerSecond, int burst) {
+
+        if (stripes < 1 || ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Stripes, rate and burst must be positive");
+        }
+
+        this.buckets = new Bucket[stripes];
+        this.tokensPerNano = ratePerSecond / NANOS_PER_SECOND;
+        this.burst = burst;
+
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            buckets[stripe] = new Bucket(burst);
+        }
+
+    }
+
+    /**
+     * Takes a token from the bucket of the key.
+     *
+     * @param nowNanos {@link System#nanoTime()}
+     * @return 0 if a token was taken, otherwise how many nanoseconds until one is available
+     */
+    public long tryAcquire(String key, long nowNanos) {
+
+        Bucket bucket = buckets[Math.floorMod(key.hashCode() * 0x9E3779B9, buckets.length)];
+
+        synchronized (bucket) {
+
+            if (bucket.used) {
+                bucket.tokens = Math.min(burst, bucket.tokens + (nowNanos - bucket.refilledAt) * tokensPerNano);
+            }
+            bucket.refilledAt = nowNanos;
+            bucket.used = true;
+
+            if (bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+                return 0;
+            }
+
+            return (long) Math.ceil((1 - bucket.tokens) / tokensPerNano);
+
+        }
+
+    }
+
+    private static final class Bucket {
+
+        private double tokens;
+
+        private long refilledAt;
+
+        private boolean used;
+
+        private Bucket(double tokens) {
+            this.tokens = tokens;
+        }
+
+    }
+
+}
@@ -0,0 +1,53 @@
+package dev.payments.api.infrastructure.metrics;
+
+import dev.payments.api.presentation.services.PaymentService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.RootClassFilter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+
+@Configuration
+public class MetricsConfiguration {
+
+    // Ordered ahead of the cache and transaction advice so the timer covers cache hits
+    // and commit time.
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor paymentServiceTimingAdvisor(ObjectProvider<MeterRegistry> meterRegistry) {
+
+        var advisor = new DefaultPointcutAdvisor(
+                new ComposablePointcut(new RootClassFilter(PaymentService.class)),
+                new PaymentServiceTimingInterceptor(meterRegistry)
+        );
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+
+        return advisor;
+
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer statementCountingCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new StatementCountingInspector());
+    }
+
+    @Bean
+    public FilterRegistrationBean<StatementCountFilter> statementCountFilter(MeterRegistry meterRegistry) {
+
+        var registration = new FilterRegistrationBean<>(new StatementCountFilter(meterRegistry));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+
+        return registration;
+
+    }
+
+}
@@ -0,0 +1,167 @@
+package dev.payments.api.infrastructure.metrics;
+
+import dev.payments.api.domain.entities.PaymentMethod;
+import dev.payments.api.domain.entities.PaymentStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Locale;
+
+/**
+ * Business counters of the payment write paths.
+ * <p>
+ * Every meter is registered up front and kept in arrays indexed by enum ordinal, so
+ * recording is an array read plus an increment, with no tag or meter allocation.
+ * <p>
+ * Creations, transitions and cancellations recorded inside a transaction are only
+ * counted once it commits, so rolled back writes are never counted; a transaction
+ * accumulates them in one array, however many rows it writes. Rejections are counted
+ * at once.
+ */
+@Component
+public class PaymentMetrics {
+
+    public enum Rejection {
+        NOT_FOUND,
+        ALREADY_SUCCEEDED,
+        INVALID_TRANSITION,
+        NOT_PENDING,
+        CONCURRENT_MODIFICATION,
+        INVALID_CARD_NUMBER,
+        INVALID_REQUEST;
+
+        private final String tag = name().toLowerCase(Locale.ROOT);
+    }
+
+    private static final int STATUS_COUNT = PaymentStatus.values().length;
+
+    private static final int CREATED_OFFSET = 0;
+
+    private static final int TRANSITIONS_OFFSET = CREATED_OFFSET + PaymentMethod.values().length;
+
+    private static final int CANCELLATIONS_OFFSET = TRANSITIONS_OFFSET + STATUS_COUNT * STATUS_COUNT;
+
+    // Creations, then transitions by (from, to), then cancellations: the meters counted on
+    // commit share one index space, so a transaction keeps its pending counts in one array.
+    private final Counter[] committed = new Counter[CANCELLATIONS_OFFSET + STATUS_COUNT];
+
+    private final Counter[] rejections;
+
+    public PaymentMetrics(MeterRegistry meterRegistry) {
+
+        PaymentMethod[] methods = PaymentMethod.values();
+        PaymentStatus[] statuses = PaymentStatus.values();
+        Rejection[] reasons = Rejection.values();
+
+        for (PaymentMethod method : methods) {
+            committed[CREATED_OFFSET + method.ordinal()] = Counter.builder("payments.created")
+                    .description("Committed payment creations, by payment method")
+                    .tag("method", method.name())
+                    .register(meterRegistry);
+        }
+
+        for (PaymentStatus from : statuses) {
+            for (PaymentStatus to : statuses) {
+                committed[transitionIndex(from, to)] = Counter.builder("payments.status.transitions")
+                        .description("Committed payment status changes")
+                        .tag("from", from.name())
+                        .tag("to", to.name())
+                        .register(meterRegistry);
+            }
+        }
+
+        for (PaymentStatus from : statuses) {
+            committed[CANCELLATIONS_OFFSET + from.ordinal()] = Counter.builder("payments.cancellations")
+                    .description("Committed payment cancellations, by status at cancellation")
+                    .tag("from", from.name())
+                    .register(meterRegistry);
+        }
+
+        rejections = new Counter[reasons.length];
+        for (Rejection reason : reasons) {
+            rejections[reason.ordinal()] = Counter.builder("payments.rejections")
+                    .description("Payment operations refused by a business rule")
+                    .tag("reason", reason.tag)
+                    .register(meterRegistry);
+        }
+
+    }
+
+    public void recordCreated(PaymentMethod method) {
+        incrementOnCommit(CREATED_OFFSET + method.ordinal(), 1);
+    }
+
+    public void recordTransition(PaymentStatus from, PaymentStatus to, int count) {
+        incrementOnCommit(transitionIndex(from, to), count);
+    }
+
+    public void recordCancellation(PaymentStatus from) {
+        incrementOnCommit(CANCELLATIONS_OFFSET + from.ordinal(), 1);
+    }
+
+    public void recordRejection(Rejection reason) {
+        rejections[reason.ordinal()].increment();
+    }
+
+    private static int transitionIndex(PaymentStatus from, PaymentStatus to) {
+        return TRANSITIONS_OFFSET + from.ordinal() * STATUS_COUNT + to.ordinal();
+    }
+
+    private void incrementOnCommit(int index, int amount) {
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            committed[index].increment(amount);
+            return;
+        }
+
+        PendingCounts pending = (PendingCounts) TransactionSynchronizationManager.getResource(this);
+
+        if (pending == null) {
+            pending = new PendingCounts();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+
+        pending.counts[index] += amount;
+
+    }
+
+    /**
+     * Counts recorded by one transaction, bound to it under this {@link PaymentMetrics} and
+     * added to the meters once it commits. It follows its transaction through suspension,
+     * so a nested REQUIRES_NEW transaction gets counts of its own.
+     */
+    private final class PendingCounts implements TransactionSynchronization {
+
+        private final long[] counts = new long[committed.length];
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(PaymentMetrics.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(PaymentMetrics.this, this);
+        }
+
+        @Override
+        public void afterCommit() {
+            for (int index = 0; index < counts.length; index++) {
+                if (counts[index] != 0) {
+                    committed[index].increment(counts[index]);
+                }
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(PaymentMetrics.this);
+        }
+
+    }
+
+}
@@ -0,0 +1,96 @@
+package dev.payments.api.infrastructure.metrics;
+
+import dev.payments.api.presentation.services.PaymentService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every {@link PaymentService} call into {@code payments.service}, tagged with the
+ * method and whether it returned or threw.
+ * <p>
+ * The service has no overloads, so timers are looked up by method name in maps built on
+ * the first call. The registry is resolved lazily because advisors are created before
+ * the post-processors that configure it.
+ */
+class PaymentServiceTimingInterceptor implements MethodInterceptor {
+
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private volatile Map<String, Timer> successTimers;
+
+    private volatile Map<String, Timer> errorTimers;
+
+    PaymentServiceTimingInterceptor(ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.meterRegistryProvider = meterRegistryProvider;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+
+        if (errorTimers == null) {
+            registerTimers();
+        }
+
+        String methodName = invocation.getMethod().getName();
+        long start = System.nanoTime();
+
+        try {
+            Object result = invocation.proceed();
+            record(successTimers, methodName, start);
+            return result;
+        } catch (Throwable e) {
+            record(errorTimers, methodName, start);
+            throw e;
+        }
+
+    }
+
+    private synchronized void registerTimers() {
+
+        if (errorTimers != null) {
+            return;
+        }
+
+        MeterRegistry meterRegistry = meterRegistryProvider.getObject();
+
+        Map<String, Timer> success = new HashMap<>();
+        Map<String, Timer> error = new HashMap<>();
+
+        for (Method method : PaymentService.class.getMethods()) {
+            success.put(method.getName(), timer(meterRegistry, method.getName(), "success"));
+            error.put(method.getName(), timer(meterRegistry, method.getName(), "error"));
+        }
+
+        successTimers = success;
+        errorTimers = error;
+
+    }
+
+    private static void record(Map<String, Timer> timers, String methodName, long start) {
+
+        Timer timer = timers.get(methodName);
+
+        if (timer != null) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String methodName, String outcome) {
+        return Timer.builder("payments.service")
+                .description("PaymentService call latency")
+                .tag("method", methodName)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+}
@@ -0,0 +1,87 @@
+package dev.payments.api.infrastructure.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records {@code payments.http.statements}: Hibernate statements issued per request,
+ * tagged with the HTTP method and the matched route pattern. Methods outside the standard
+ * ones are tagged {@code OTHER}, so arbitrary client input cannot create new meters.
+ * <p>
+ * Statements run after the initial dispatch, e.g. by a streamed export, are not counted.
+ */
+class StatementCountFilter extends OncePerRequestFilter {
+
+    private static final String UNMATCHED_URI = "UNKNOWN";
+
+    private static final String OTHER_METHOD = "OTHER";
+
+    private static final Set<String> KNOWN_METHODS = Set.of(
+            "GET", "HEAD", "POST", "PUT", "PATCH", "DELETE", "OPTIONS", "TRACE"
+    );
+
+    private final MeterRegistry meterRegistry;
+
+    // method -> route pattern -> summary; looked up with plain gets once registered.
+    private final Map<String, Map<String, DistributionSummary>> summaries = new ConcurrentHashMap<>();
+
+    StatementCountFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        StatementCountingInspector.reset();
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern == null ? UNMATCHED_URI : pattern.toString();
+
+            String method = KNOWN_METHODS.contains(request.getMethod()) ? request.getMethod() : OTHER_METHOD;
+
+            summary(method, uri).record(StatementCountingInspector.count());
+        }
+
+    }
+
+    private DistributionSummary summary(String method, String uri) {
+
+        Map<String, DistributionSummary> byUri = summaries.get(method);
+        DistributionSummary summary = byUri == null ? null : byUri.get(uri);
+
+        if (summary != null) {
+            return summary;
+        }
+
+        return summaries.computeIfAbsent(method, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(uri, key -> register(method, uri));
+
+    }
+
+    private DistributionSummary register(String method, String uri) {
+        return DistributionSummary.builder("payments.http.statements")
+                .description("Hibernate statements issued per HTTP request")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry);
+    }
+
+}
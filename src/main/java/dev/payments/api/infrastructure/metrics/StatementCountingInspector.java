@@ -0,0 +1,27 @@
+package dev.payments.api.infrastructure.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread, so
+ * {@link StatementCountFilter} can report how many each request issued.
+ */
+class StatementCountingInspector implements StatementInspector {
+
+    private static final ThreadLocal<int[]> STATEMENT_COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENT_COUNT.get()[0]++;
+        return sql;
+    }
+
+    static void reset() {
+        STATEMENT_COUNT.get()[0] = 0;
+    }
+
+    static int count() {
+        return STATEMENT_COUNT.get()[0];
+    }
+
+}
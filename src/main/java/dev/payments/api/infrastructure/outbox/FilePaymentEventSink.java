@@ -0,0 +1,64 @@
+package dev.payments.api.infrastructure.outbox;
+
+import dev.payments.api.domain.entities.PaymentOutboxEvent;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends each batch to an NDJSON file, one {@code {"sequence":..,"event":..}} object per
+ * line, and forces it to disk before the batch is acknowledged. Only the relay thread
+ * calls it.
+ */
+public class FilePaymentEventSink implements PaymentEventSink {
+
+    private final Path file;
+
+    public FilePaymentEventSink(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public void publish(List<PaymentOutboxEvent> events) throws IOException {
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        try (FileChannel channel = FileChannel.open(
+                file,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND
+        )) {
+
+            BufferedWriter writer = new BufferedWriter(
+                    new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8)
+            );
+
+            for (PaymentOutboxEvent event : events) {
+                writer.write("{\"sequence\":");
+                writer.write(Long.toString(event.getId()));
+                writer.write(",\"event\":");
+                writer.write(event.getPayload());
+                writer.write('}');
+                writer.newLine();
+            }
+
+            writer.flush();
+            channel.force(false);
+
+        }
+
+    }
+
+}
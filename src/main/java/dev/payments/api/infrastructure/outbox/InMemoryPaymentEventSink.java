@@ -0,0 +1,45 @@
+package dev.payments.api.infrastructure.outbox;
+
+import dev.payments.api.domain.entities.PaymentOutboxEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the latest relayed events in a bounded queue for in-process consumers. When no
+ * one keeps up, the oldest events are dropped and counted rather than stalling the relay.
+ */
+public class InMemoryPaymentEventSink implements PaymentEventSink {
+
+    private final BlockingQueue<PaymentOutboxEvent> queue;
+
+    private final Counter droppedEvents;
+
+    public InMemoryPaymentEventSink(int capacity, MeterRegistry meterRegistry) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.droppedEvents = Counter.builder("payments.outbox.sink.dropped")
+                .description("Relayed events dropped by the in-memory sink because it was full")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void publish(List<PaymentOutboxEvent> events) {
+        for (PaymentOutboxEvent event : events) {
+            while (!queue.offer(event)) {
+                if (queue.poll() != null) {
+                    droppedEvents.increment();
+                }
+            }
+        }
+    }
+
+    public PaymentOutboxEvent poll(Duration timeout) throws InterruptedException {
+        return queue.poll(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+}
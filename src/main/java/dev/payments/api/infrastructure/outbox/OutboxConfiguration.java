@@ -0,0 +1,62 @@
+package dev.payments.api.infrastructure.outbox;
+
+import dev.payments.api.domain.repositories.PaymentOutboxRepository;
+import dev.payments.api.infrastructure.sharding.PaymentShards;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Configuration
+@EnableScheduling
+public class OutboxConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(name = "payments.outbox.sink", havingValue = "file")
+    public PaymentEventSink filePaymentEventSink(@Value("${payments.outbox.file}") Path file) {
+        return new FilePaymentEventSink(file);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(PaymentEventSink.class)
+    public InMemoryPaymentEventSink inMemoryPaymentEventSink(
+            @Value("${payments.outbox.memory-capacity:10000}") int capacity,
+            MeterRegistry meterRegistry
+    ) {
+        return new InMemoryPaymentEventSink(capacity, meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "payments.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+    public PaymentOutboxRelay paymentOutboxRelay(
+            PaymentOutboxRepository paymentOutboxRepository,
+            PaymentEventSink sink,
+            PlatformTransactionManager transactionManager,
+            PaymentShards paymentShards,
+            MeterRegistry meterRegistry,
+            @Value("${payments.outbox.relay.min-batch-size:50}") int minBatchSize,
+            @Value("${payments.outbox.relay.max-batch-size:5000}") int maxBatchSize,
+            @Value("${payments.outbox.relay.max-batches-per-poll:10}") int maxBatchesPerPoll,
+            @Value("${payments.outbox.relay.target-latency:PT0.2S}") Duration targetLatency
+    ) {
+        return new PaymentOutboxRelay(
+                paymentOutboxRepository,
+                sink,
+                transactionManager,
+                paymentShards,
+                meterRegistry,
+                minBatchSize,
+                maxBatchSize,
+                maxBatchesPerPoll,
+                targetLatency
+        );
+    }
+
+}
@@ -0,0 +1,16 @@
+package dev.payments.api.infrastructure.outbox;
+
+import dev.payments.api.domain.entities.PaymentOutboxEvent;
+
+import java.util.List;
+
+/**
+ * Destination of relayed payment changes. Events arrive in outbox order; a sink either
+ * accepts the whole batch or throws, in which case the relay retries it later, so
+ * delivery is at least once.
+ */
+public interface PaymentEventSink {
+
+    void publish(List<PaymentOutboxEvent> events) throws Exception;
+
+}
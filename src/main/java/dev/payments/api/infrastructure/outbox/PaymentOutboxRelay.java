@@ -0,0 +1,170 @@
+package dev.payments.api.infrastructure.outbox;
+
+import dev.payments.api.domain.entities.PaymentOutboxEvent;
+import dev.payments.api.domain.repositories.PaymentOutboxRepository;
+import dev.payments.api.infrastructure.sharding.PaymentShards;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the outbox to the {@link PaymentEventSink} from a single scheduler thread, in id
+ * order, which is also the order of the changes of any one payment.
+ * <p>
+ * The batch size adapts to the sink: it doubles while full batches are published within
+ * the target latency and halves when a batch is slow or fails. Rows are deleted only
+ * after the sink accepted them.
+ * <p>
+ * Each shard has its own outbox, drained in turn; order holds per payment since a payment
+ * never leaves its shard. A poll publishes at most {@code maxBatchesPerPoll} batches per
+ * shard, so a backlog on one shard cannot hold the others back and the lag gauge keeps
+ * being refreshed while the relay catches up.
+ */
+public class PaymentOutboxRelay {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PaymentOutboxRelay.class);
+
+    private final PaymentOutboxRepository paymentOutboxRepository;
+
+    private final PaymentEventSink sink;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final PaymentShards paymentShards;
+
+    private final int minBatchSize;
+
+    private final int maxBatchSize;
+
+    private final int maxBatchesPerPoll;
+
+    private final long targetLatencyNanos;
+
+    private final AtomicInteger batchSize;
+
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    private final Timer publishTimer;
+
+    private final Counter publishedEvents;
+
+    private final Counter failedBatches;
+
+    public PaymentOutboxRelay(
+            PaymentOutboxRepository paymentOutboxRepository,
+            PaymentEventSink sink,
+            PlatformTransactionManager transactionManager,
+            PaymentShards paymentShards,
+            MeterRegistry meterRegistry,
+            int minBatchSize,
+            int maxBatchSize,
+            int maxBatchesPerPoll,
+            Duration targetLatency
+    ) {
+        this.paymentOutboxRepository = paymentOutboxRepository;
+        this.sink = sink;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.paymentShards = paymentShards;
+        this.minBatchSize = minBatchSize;
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchesPerPoll = maxBatchesPerPoll;
+        this.targetLatencyNanos = targetLatency.toNanos();
+        this.batchSize = new AtomicInteger(minBatchSize);
+
+        this.publishTimer = Timer.builder("payments.outbox.publish")
+                .description("Time to publish one outbox batch to the sink")
+                .register(meterRegistry);
+        this.publishedEvents = Counter.builder("payments.outbox.published")
+                .description("Outbox events accepted by the sink")
+                .register(meterRegistry);
+        this.failedBatches = Counter.builder("payments.outbox.failures")
+                .description("Outbox batches the sink rejected")
+                .register(meterRegistry);
+        Gauge.builder("payments.outbox.lag", lagMillis, lag -> lag.get() / 1000.0)
+                .description("Age in seconds of the oldest unpublished outbox event at the last poll")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("payments.outbox.batch.size", batchSize, AtomicInteger::get)
+                .description("Current adaptive outbox batch size")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${payments.outbox.poll-interval:PT0.5S}")
+    public void relay() {
+
+        AtomicLong oldestLagMillis = new AtomicLong();
+
+        paymentShards.forEachShard(shard -> oldestLagMillis.accumulateAndGet(relayShard(), Math::max));
+
+        lagMillis.set(oldestLagMillis.get());
+
+    }
+
+    // Returns the age of the oldest event found, or 0 when the outbox was empty.
+    private long relayShard() {
+
+        long oldestLagMillis = 0;
+        boolean fullBatch = true;
+
+        for (int batch = 0; fullBatch && batch < maxBatchesPerPoll; batch++) {
+
+            int limit = batchSize.get();
+            // Read in a read-write transaction, so it is served by the primary: a lagging
+            // replica would hand back events that were already published and deleted.
+            List<PaymentOutboxEvent> events = transactionTemplate.execute(
+                    status -> paymentOutboxRepository.findByOrderByIdAsc(PageRequest.of(0, limit))
+            );
+
+            if (events.isEmpty()) {
+                return oldestLagMillis;
+            }
+
+            long lag = Math.max(0, Duration.between(events.get(0).getCreatedAt(), Instant.now()).toMillis());
+            oldestLagMillis = Math.max(oldestLagMillis, lag);
+
+            long start = System.nanoTime();
+
+            try {
+                sink.publish(events);
+            } catch (Exception e) {
+                failedBatches.increment();
+                batchSize.set(Math.max(minBatchSize, limit / 2));
+                LOGGER.warn("Outbox sink rejected a batch of {} events, retrying on the next poll", events.size(), e);
+                return oldestLagMillis;
+            }
+
+            long elapsed = System.nanoTime() - start;
+            publishTimer.record(Duration.ofNanos(elapsed));
+            publishedEvents.increment(events.size());
+
+            List<Long> ids = events.stream().map(PaymentOutboxEvent::getId).toList();
+            transactionTemplate.executeWithoutResult(status -> paymentOutboxRepository.deleteAllByIdInBatch(ids));
+
+            fullBatch = events.size() == limit;
+
+            if (elapsed > targetLatencyNanos) {
+                batchSize.set(Math.max(minBatchSize, limit / 2));
+            } else if (fullBatch) {
+                batchSize.set(Math.min(maxBatchSize, limit * 2));
+            }
+
+        }
+
+        return oldestLagMillis;
+
+    }
+
+}
@@ -0,0 +1,38 @@
+package dev.payments.api.infrastructure.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.payments.api.domain.entities.PaymentOutboxEvent;
+import dev.payments.api.domain.events.PaymentChangedEvent;
+import dev.payments.api.domain.repositories.PaymentOutboxRepository;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds an outbox row for every payment change, in the transaction that makes the change.
+ * The row is only persisted here and inserted with the transaction's flush, so the
+ * write path gains a batched INSERT but no extra round trip of its own.
+ */
+@Component
+class PaymentOutboxWriter {
+
+    private final PaymentOutboxRepository paymentOutboxRepository;
+
+    private final ObjectMapper objectMapper;
+
+    PaymentOutboxWriter(PaymentOutboxRepository paymentOutboxRepository, ObjectMapper objectMapper) {
+        this.paymentOutboxRepository = paymentOutboxRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @EventListener
+    public void onPaymentChanged(PaymentChangedEvent event) throws JsonProcessingException {
+        paymentOutboxRepository.save(new PaymentOutboxEvent(
+                event.paymentId(),
+                event.type(),
+                objectMapper.writeValueAsString(event),
+                event.occurredAt()
+        ));
+    }
+
+}
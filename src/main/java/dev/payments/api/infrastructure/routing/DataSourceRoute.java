@@ -0,0 +1,6 @@
+package dev.payments.api.infrastructure.routing;
+
+public enum DataSourceRoute {
+    PRIMARY,
+    REPLICA
+}
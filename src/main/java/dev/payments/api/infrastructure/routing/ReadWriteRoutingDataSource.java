@@ -0,0 +1,53 @@
+package dev.payments.api.infrastructure.routing;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Sends read-only transactions to the replica and everything else, including work done
+ * outside a transaction, to the primary.
+ * <p>
+ * The route is decided when a physical connection is first needed, so this data source
+ * must sit behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy};
+ * otherwise the connection is taken before the transaction is marked read-only.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final ThreadLocal<Boolean> PINNED_TO_PRIMARY = new ThreadLocal<>();
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica) {
+        setTargetDataSources(Map.of(DataSourceRoute.PRIMARY, primary, DataSourceRoute.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+    }
+
+    /**
+     * Sends the current thread's reads to the primary until {@link #unpin()}, so a client
+     * that just wrote reads its own writes regardless of replica lag.
+     */
+    public static void pinToPrimary() {
+        PINNED_TO_PRIMARY.set(Boolean.TRUE);
+    }
+
+    public static void unpin() {
+        PINNED_TO_PRIMARY.remove();
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return PINNED_TO_PRIMARY.get() != null;
+    }
+
+    @Override
+    protected DataSourceRoute determineCurrentLookupKey() {
+
+        boolean readOnly = TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+
+        return readOnly && PINNED_TO_PRIMARY.get() == null ? DataSourceRoute.REPLICA : DataSourceRoute.PRIMARY;
+
+    }
+
+}
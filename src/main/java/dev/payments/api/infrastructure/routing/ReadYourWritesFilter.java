@@ -0,0 +1,94 @@
+package dev.payments.api.infrastructure.routing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Gives a client read-your-writes consistency for a short window after it writes.
+ * <p>
+ * Any request that may write stamps the client with a cookie before it runs, while the
+ * response can still take headers. Reads carrying a cookie younger than the window are
+ * pinned to the primary. Reads run after the initial dispatch, e.g. by a streamed
+ * export, are not pinned.
+ */
+class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String LAST_WRITE_COOKIE = "payments-last-write";
+
+    private final long windowMillis;
+
+    ReadYourWritesFilter(Duration window) {
+        this.windowMillis = window.toMillis();
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        long now = System.currentTimeMillis();
+
+        if (!isSafe(request.getMethod())) {
+            var cookie = new Cookie(LAST_WRITE_COOKIE, Long.toString(now));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, Duration.ofMillis(windowMillis).toSeconds()));
+            response.addCookie(cookie);
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        // A stamp from the future can only come from a forged cookie; it is ignored.
+        long sinceLastWrite = now - lastWrite(request);
+
+        if (sinceLastWrite < 0 || sinceLastWrite >= windowMillis) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        ReadWriteRoutingDataSource.pinToPrimary();
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadWriteRoutingDataSource.unpin();
+        }
+
+    }
+
+    private static boolean isSafe(String method) {
+        return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method);
+    }
+
+    private static long lastWrite(HttpServletRequest request) {
+
+        Cookie[] cookies = request.getCookies();
+
+        if (cookies == null) {
+            return 0;
+        }
+
+        for (Cookie cookie : cookies) {
+            if (LAST_WRITE_COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+
+        return 0;
+
+    }
+
+}
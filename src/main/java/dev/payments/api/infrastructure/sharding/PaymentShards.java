@@ -0,0 +1,160 @@
+package dev.payments.api.infrastructure.sharding;
+
+import dev.payments.api.infrastructure.hibernate.TimeOrderedUuidGenerator;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * Tells which shard holds a user's payments and runs work against one shard or all of
+ * them.
+ * <p>
+ * A user's payments, summaries and idempotency keys live on the shard picked by a CRC32
+ * of the user identification, so anything filtered by user touches a single database.
+ * Payment ids carry their shard (see {@link TimeOrderedUuidGenerator}), so lookups by id
+ * do too. With a single shard nothing is ever bound and every call runs as is.
+ */
+public class PaymentShards implements AutoCloseable {
+
+    private static final PaymentShards SINGLE = new PaymentShards(1, null);
+
+    private final int count;
+
+    private final ExecutorService scatterExecutor;
+
+    public PaymentShards(int count, ExecutorService scatterExecutor) {
+
+        if (count < 1 || count > TimeOrderedUuidGenerator.MAX_SHARDS) {
+            throw new IllegalArgumentException(
+                    "Shard count must be between 1 and " + TimeOrderedUuidGenerator.MAX_SHARDS + ", got " + count
+            );
+        }
+
+        this.count = count;
+        this.scatterExecutor = scatterExecutor;
+
+    }
+
+    public static PaymentShards single() {
+        return SINGLE;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public boolean isSharded() {
+        return count > 1;
+    }
+
+    public int shardOf(String userIdentification) {
+
+        if (!isSharded()) {
+            return 0;
+        }
+
+        var crc = new CRC32();
+        crc.update(userIdentification.getBytes(StandardCharsets.UTF_8));
+
+        return (int) (crc.getValue() % count);
+
+    }
+
+    // Ids that were not minted here, e.g. made up by a client, still map to some shard,
+    // where they are simply not found.
+    public int shardOf(UUID paymentId) {
+        return isSharded() ? TimeOrderedUuidGenerator.shardOf(paymentId) % count : 0;
+    }
+
+    public <T> T callOn(int shard, Supplier<T> action) {
+        return isSharded() ? ShardRoutingDataSource.callOn(shard, action) : action.get();
+    }
+
+    public void runOn(int shard, Runnable action) {
+        callOn(shard, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Binds the shard to the current transaction; see
+     * {@link ShardRoutingDataSource#bindToTransaction(int)}. Calling it outside a
+     * transaction fails even with a single shard, so a missing transaction shows up
+     * before the service runs sharded.
+     */
+    public void bindToTransaction(int shard) {
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Shards must be bound inside a transaction");
+        }
+
+        if (isSharded()) {
+            ShardRoutingDataSource.bindToTransaction(shard);
+        }
+
+    }
+
+    public void forEachShard(IntConsumer action) {
+        for (int shard = 0; shard < count; shard++) {
+            int current = shard;
+            runOn(current, () -> action.accept(current));
+        }
+    }
+
+    /**
+     * Runs the query on every shard in parallel and returns the results by shard.
+     */
+    public <T> List<T> scatter(IntFunction<T> query) {
+
+        if (!isSharded()) {
+            return List.of(query.apply(0));
+        }
+
+        List<Future<T>> futures = new ArrayList<>(count);
+
+        for (int shard = 0; shard < count; shard++) {
+            int current = shard;
+            futures.add(scatterExecutor.submit(() -> callOn(current, () -> query.apply(current))));
+        }
+
+        List<T> results = new ArrayList<>(count);
+
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while querying the shards", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Shard query failed", e.getCause());
+        }
+
+        return results;
+
+    }
+
+    @Override
+    public void close() {
+        if (scatterExecutor != null) {
+            scatterExecutor.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,112 @@
+package dev.payments.api.infrastructure.sharding;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Sends every connection to the shard bound to the current thread, or to shard 0 when
+ * none is bound.
+ * <p>
+ * Like the read/write routing, the shard is looked up when a physical connection is first
+ * needed, so this data source must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}; a shard
+ * bound right after a transaction began still decides where all of its statements run.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private static final ThreadLocal<Integer> CURRENT_SHARD = new ThreadLocal<>();
+
+    private final List<? extends DataSource> shards;
+
+    public ShardRoutingDataSource(List<? extends DataSource> shards) {
+
+        Map<Object, Object> targets = new HashMap<>();
+
+        for (int shard = 0; shard < shards.size(); shard++) {
+            targets.put(shard, shards.get(shard));
+        }
+
+        this.shards = shards;
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.get(0));
+        setLenientFallback(false);
+
+    }
+
+    public static Integer currentShard() {
+        return CURRENT_SHARD.get();
+    }
+
+    /**
+     * Runs the action with the shard bound, restoring whatever was bound before.
+     * Transactions must begin inside the action.
+     */
+    public static <T> T callOn(int shard, Supplier<T> action) {
+
+        Integer previous = CURRENT_SHARD.get();
+        CURRENT_SHARD.set(shard);
+
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT_SHARD.remove();
+            } else {
+                CURRENT_SHARD.set(previous);
+            }
+        }
+
+    }
+
+    /**
+     * Binds the shard until the current transaction completes. Must be called before the
+     * transaction runs its first statement; a transaction cannot span two shards.
+     */
+    public static void bindToTransaction(int shard) {
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Shards must be bound inside a transaction");
+        }
+
+        Integer current = CURRENT_SHARD.get();
+
+        if (current != null) {
+            if (current != shard) {
+                throw new IllegalStateException("Transaction is bound to shard " + current + ", not " + shard);
+            }
+            return;
+        }
+
+        CURRENT_SHARD.set(shard);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                CURRENT_SHARD.remove();
+            }
+        });
+
+    }
+
+    @Override
+    protected Integer determineCurrentLookupKey() {
+        Integer shard = CURRENT_SHARD.get();
+        return shard == null ? 0 : shard;
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource shard : shards) {
+            if (shard instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,42 @@
+package dev.payments.api.infrastructure.sharding;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+
+/**
+ * Applies {@code spring.jpa.hibernate.ddl-auto} to every shard but the first, which
+ * Hibernate already handles as the default target of the routing data source.
+ */
+class ShardSchemaIntegrator implements Integrator {
+
+    private final int shardCount;
+
+    ShardSchemaIntegrator(int shardCount) {
+        this.shardCount = shardCount;
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        for (int shard = 1; shard < shardCount; shard++) {
+            // Delayed drops of create-drop are not registered; they only apply on shutdown.
+            ShardRoutingDataSource.callOn(shard, () -> {
+                SchemaManagementToolCoordinator.process(
+                        metadata,
+                        sessionFactory.getServiceRegistry(),
+                        sessionFactory.getProperties(),
+                        action -> { }
+                );
+                return null;
+            });
+        }
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+}
@@ -0,0 +1,103 @@
+package dev.payments.api.infrastructure.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+/**
+ * Spreads payments over the databases listed in {@code payments.sharding.urls} when
+ * {@code payments.sharding.enabled} is set. Each shard gets the full schema and its own
+ * Hikari pool, named shard-0, shard-1 and so on, with the usual Hikari metrics.
+ * <p>
+ * The shard count is part of where rows live, so changing it requires moving the
+ * existing data. Sharding and the replica routing of
+ * {@code payments.datasource.replica} cannot be combined.
+ */
+@Configuration
+public class ShardingConfiguration {
+
+    @Bean
+    public PaymentShards paymentShards(
+            @Value("${payments.sharding.enabled:false}") boolean enabled,
+            @Value("${payments.sharding.urls:}") List<String> urls,
+            @Value("${payments.sharding.scatter-threads:8}") int scatterThreads
+    ) {
+
+        if (!enabled || urls.size() < 2) {
+            return PaymentShards.single();
+        }
+
+        return new PaymentShards(urls.size(), Executors.newFixedThreadPool(scatterThreads));
+
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "payments.sharding.enabled", havingValue = "true")
+    public ShardRoutingDataSource shardRoutingDataSource(
+            DataSourceProperties properties,
+            MeterRegistry meterRegistry,
+            @Value("${payments.sharding.urls}") List<String> urls,
+            @Value("${payments.sharding.pool-size:10}") int poolSize,
+            @Value("${payments.datasource.replica.enabled:false}") boolean replicaEnabled
+    ) {
+
+        if (replicaEnabled) {
+            throw new IllegalStateException(
+                    "payments.sharding.enabled cannot be combined with payments.datasource.replica.enabled"
+            );
+        }
+
+        List<HikariDataSource> shards = new ArrayList<>(urls.size());
+
+        for (int shard = 0; shard < urls.size(); shard++) {
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(urls.get(shard))
+                    .username(properties.determineUsername())
+                    .password(properties.determinePassword())
+                    .build();
+            dataSource.setPoolName("shard-" + shard);
+            dataSource.setMaximumPoolSize(poolSize);
+            // The pools are not beans of their own, so their metrics are bound here.
+            dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            shards.add(dataSource);
+        }
+
+        var routingDataSource = new ShardRoutingDataSource(shards);
+        routingDataSource.afterPropertiesSet();
+
+        return routingDataSource;
+
+    }
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "payments.sharding.enabled", havingValue = "true")
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "payments.sharding.enabled", havingValue = "true")
+    public HibernatePropertiesCustomizer shardSchemaCustomizer(@Value("${payments.sharding.urls}") List<String> urls) {
+        IntegratorProvider integrators = () -> List.of(new ShardSchemaIntegrator(urls.size()));
+        return properties -> properties.put("hibernate.integrator_provider", integrators);
+    }
+
+}
@@ -0,0 +1,62 @@
+package dev.payments.api.infrastructure.sharding;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Merges lists that are each already sorted, such as the same page read from every shard.
+ */
+public final class SortedRuns {
+
+    private SortedRuns() {
+    }
+
+    /**
+     * Returns the rows at positions [skip, skip + limit) of the merged order. Only the
+     * head of each run is held in the heap, so this takes O((skip + limit) log runs).
+     */
+    public static <T> List<T> merge(List<List<T>> runs, Comparator<? super T> order, long skip, int limit) {
+
+        PriorityQueue<Head<T>> heads = new PriorityQueue<>(
+                Math.max(1, runs.size()),
+                (left, right) -> order.compare(left.row(), right.row())
+        );
+
+        for (List<T> run : runs) {
+            if (!run.isEmpty()) {
+                heads.add(new Head<>(run, 0));
+            }
+        }
+
+        List<T> merged = new ArrayList<>(Math.min(limit, 1024));
+        long position = 0;
+
+        while (!heads.isEmpty() && merged.size() < limit) {
+
+            Head<T> head = heads.poll();
+
+            if (position++ >= skip) {
+                merged.add(head.row());
+            }
+
+            if (head.index() + 1 < head.run().size()) {
+                heads.add(new Head<>(head.run(), head.index() + 1));
+            }
+
+        }
+
+        return merged;
+
+    }
+
+    private record Head<T>(List<T> run, int index) {
+
+        T row() {
+            return run.get(index);
+        }
+
+    }
+
+}
@@ -0,0 +1,50 @@
+package dev.payments.api.infrastructure.threads;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs servlet requests, and everything they call down to JDBC, on virtual threads.
+ * <p>
+ * Enabled with {@code payments.threads.virtual=true} on a JDK 21+ runtime (see the
+ * {@code virtual-threads} Maven profile). The executor is looked up reflectively so the
+ * default build keeps targeting Java 17.
+ */
+@Configuration
+@ConditionalOnProperty(name = "payments.threads.virtual", havingValue = "true")
+public class VirtualThreadConfiguration {
+
+    @Bean(destroyMethod = "close")
+    public ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(
+                    "payments.threads.virtual=true requires a Java 21+ runtime, found " + Runtime.version(),
+                    e
+            );
+        }
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(
+            ExecutorService virtualThreadExecutor
+    ) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    // Also serves MVC async work such as the StreamingResponseBody of GET /payments/export.
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor(ExecutorService virtualThreadExecutor) {
+        return new TaskExecutorAdapter(virtualThreadExecutor);
+    }
+
+}
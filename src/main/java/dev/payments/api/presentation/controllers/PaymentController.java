@@ -1,18 +1,34 @@
 package dev.payments.api.presentation.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.payments.api.presentation.dtos.*;
 import dev.payments.api.domain.entities.PaymentStatus;
+import dev.payments.api.presentation.exports.PaymentExportFormat;
+import dev.payments.api.presentation.services.IdempotencyService;
+import dev.payments.api.presentation.services.PaymentImportService;
 import dev.payments.api.presentation.services.PaymentService;
+import dev.payments.api.presentation.services.PaymentStreamService;
+import dev.payments.api.presentation.services.PaymentSummaryService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -22,9 +38,31 @@ public class PaymentController {
 
     private final PaymentService paymentService;
 
+    private final IdempotencyService idempotencyService;
 
-    public PaymentController(PaymentService paymentService) {
+    private final PaymentImportService paymentImportService;
+
+    private final PaymentSummaryService paymentSummaryService;
+
+    private final PaymentStreamService paymentStreamService;
+
+    private final ObjectMapper objectMapper;
+
+
+    public PaymentController(
+            PaymentService paymentService,
+            IdempotencyService idempotencyService,
+            PaymentImportService paymentImportService,
+            PaymentSummaryService paymentSummaryService,
+            PaymentStreamService paymentStreamService,
+            ObjectMapper objectMapper
+    ) {
         this.paymentService = paymentService;
+        this.idempotencyService = idempotencyService;
+        this.paymentImportService = paymentImportService;
+        this.paymentSummaryService = paymentSummaryService;
+        this.paymentStreamService = paymentStreamService;
+        this.objectMapper = objectMapper;
     }
 
 
@@ -32,20 +70,75 @@ public class PaymentController {
     @Operation(summary = "Rota para criar um pagamento")
     @ApiResponse(responseCode = "201", description = "Pagamento criado com sucesso")
     @ApiResponse(responseCode = "400", description = "Os dados fornecidos são inválidos")
-    public ResponseEntity<PaymentDto> postPayments(@RequestBody @Valid CreatePaymentDto createPaymentDto) {
+    @ApiResponse(responseCode = "422", description = "A chave de idempotência já foi usada com outra requisição")
+    public ResponseEntity<PaymentDto> postPayments(
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestBody @Valid CreatePaymentDto createPaymentDto
+    ) {
 
-        var createdPayment = paymentService.createPayment(createPaymentDto);
+        var createdPayment = idempotencyKey == null
+                ? paymentService.createPayment(createPaymentDto)
+                : idempotencyService.execute(
+                        idempotencyKey,
+                        createPaymentDto,
+                        () -> paymentService.createPayment(createPaymentDto)
+                );
 
         return new ResponseEntity<>(createdPayment, HttpStatus.CREATED);
 
     }
 
 
+    @PostMapping("batch")
+    @Operation(summary = "Rota para criar pagamentos em lote")
+    @ApiResponse(responseCode = "200", description = "Lote processado, com o resultado de cada pagamento")
+    @ApiResponse(responseCode = "400", description = "O lote fornecido é inválido")
+    public ResponseEntity<List<BatchPaymentResultDto>> postPaymentsBatch(
+            @RequestBody List<CreatePaymentDto> createPaymentDtos
+    ) {
+
+        var results = paymentService.createPayments(createPaymentDtos);
+
+        return new ResponseEntity<>(results, HttpStatus.OK);
+
+    }
+
+
+    @PostMapping("import")
+    @Operation(summary = "Rota para importar pagamentos de um arquivo NDJSON ou CSV")
+    @ApiResponse(responseCode = "202", description = "Arquivo lido; os últimos lotes podem ainda estar sendo gravados")
+    @ApiResponse(responseCode = "400", description = "O arquivo enviado não pôde ser lido")
+    public ResponseEntity<PaymentImportJobDto> importPayments(
+            @RequestParam(defaultValue = "NDJSON") PaymentImportFormat format,
+            InputStream body
+    ) {
+
+        var job = paymentImportService.startImport(body, format);
+
+        return new ResponseEntity<>(job, HttpStatus.ACCEPTED);
+
+    }
+
+
+    @GetMapping("import/{jobId}")
+    @Operation(summary = "Rota para consultar o progresso de uma importação")
+    @ApiResponse(responseCode = "200", description = "Importação encontrada")
+    @ApiResponse(responseCode = "404", description = "Importação não encontrada")
+    public ResponseEntity<PaymentImportJobDto> getImportJob(@PathVariable UUID jobId) {
+
+        var job = paymentImportService.getImportJob(jobId);
+
+        return new ResponseEntity<>(job, HttpStatus.OK);
+
+    }
+
+
     @PutMapping("{id}")
     @Operation(summary = "Rota para atualizar o status de um pagamento")
     @ApiResponse(responseCode = "200", description = "Pagamento atualizado com sucesso")
     @ApiResponse(responseCode = "400", description = "Pagamento com status fornecido inválido")
     @ApiResponse(responseCode = "404", description = "Pagamento não encontrado")
+    @ApiResponse(responseCode = "409", description = "Pagamento alterado por outra requisição")
     public ResponseEntity<PaymentDto> putPayments(
             @PathVariable UUID id,
             @RequestBody @Valid UpdatePaymentStatusDto updatePaymentStatusDto
@@ -58,28 +151,178 @@ public class PaymentController {
     }
 
 
+    @PutMapping("batch")
+    @Operation(summary = "Rota para atualizar o status de pagamentos em lote")
+    @ApiResponse(responseCode = "200", description = "Lote processado, com os pagamentos atualizados e rejeitados")
+    @ApiResponse(responseCode = "400", description = "O lote fornecido é inválido")
+    public ResponseEntity<UpdatePaymentStatusBatchResultDto> putPaymentsBatch(
+            @RequestBody List<UpdatePaymentStatusBatchItemDto> items
+    ) {
+
+        var result = paymentService.updatePaymentStatuses(items);
+
+        return new ResponseEntity<>(result, HttpStatus.OK);
+
+    }
+
+
     @GetMapping
     @Operation(summary = "Rota para listar todos os pagamentos")
     @ApiResponse(responseCode = "200", description = "Pagamentos listados com sucesso")
     public ResponseEntity<Page<PaymentDto>> getPayments(
             @RequestParam(required = false) Long debitCode,
             @RequestParam(required = false) String userIdentification,
-            @RequestParam(required = false) PaymentStatus status,
+            @RequestParam(required = false) List<PaymentStatus> status,
+            @RequestParam(required = false) BigDecimal minValue,
+            @RequestParam(required = false) BigDecimal maxValue,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant createdTo,
+            @RequestParam(defaultValue = "false") boolean includeArchived,
             Pageable pageable
     ) {
 
-        var payments = paymentService.getPayments(debitCode, status, userIdentification, pageable);
+        var filter = new PaymentFilterDto(
+                debitCode, userIdentification, status, minValue, maxValue, createdFrom, createdTo, includeArchived
+        );
+
+        var payments = paymentService.getPayments(filter, pageable);
+
+        return new ResponseEntity<>(payments, HttpStatus.OK);
+
+    }
+
+
+    @GetMapping("scroll")
+    @Operation(summary = "Rota para listar os pagamentos por cursor, sem contagem total")
+    @ApiResponse(responseCode = "200", description = "Pagamentos listados com sucesso")
+    @ApiResponse(responseCode = "400", description = "O cursor ou o tamanho da página são inválidos")
+    public ResponseEntity<PaymentSliceDto> scrollPayments(
+            @RequestParam(required = false) Long debitCode,
+            @RequestParam(required = false) String userIdentification,
+            @RequestParam(required = false) List<PaymentStatus> status,
+            @RequestParam(required = false) BigDecimal minValue,
+            @RequestParam(required = false) BigDecimal maxValue,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant createdTo,
+            @RequestParam(defaultValue = "false") boolean includeArchived,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+
+        var filter = new PaymentFilterDto(
+                debitCode, userIdentification, status, minValue, maxValue, createdFrom, createdTo, includeArchived
+        );
+
+        var payments = paymentService.scrollPayments(filter, cursor, size);
 
         return new ResponseEntity<>(payments, HttpStatus.OK);
 
     }
 
 
+    @GetMapping("summary")
+    @Operation(summary = "Rota para consultar os totais dos pagamentos por status e método")
+    @ApiResponse(responseCode = "200", description = "Totais de um usuário, ou de todos quando nenhum é informado")
+    public ResponseEntity<PaymentSummaryDto> getPaymentSummary(
+            @RequestParam(required = false) String userIdentification
+    ) {
+
+        var summary = paymentSummaryService.getSummary(userIdentification);
+
+        return new ResponseEntity<>(summary, HttpStatus.OK);
+
+    }
+
+
+    @PostMapping("summary/rebuild")
+    @Operation(summary = "Rota para recalcular os totais a partir dos pagamentos")
+    @ApiResponse(responseCode = "200", description = "Totais recalculados com sucesso")
+    public ResponseEntity<PaymentSummaryDto> rebuildPaymentSummary() {
+
+        var summary = paymentSummaryService.rebuildSummary();
+
+        return new ResponseEntity<>(summary, HttpStatus.OK);
+
+    }
+
+
+    @GetMapping(value = "stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+            summary = "Rota para acompanhar as alterações dos pagamentos via Server-Sent Events",
+            description = "Envia um evento por criação (CREATED), alteração de status (STATUS_CHANGED) ou "
+                    + "cancelamento (CANCELLED) de pagamento; o nome do evento é o tipo da alteração"
+    )
+    @ApiResponse(responseCode = "200", description = "Conexão aberta; cada alteração é enviada como um evento")
+    @ApiResponse(responseCode = "400", description = "Nenhum filtro foi informado")
+    public SseEmitter streamPayments(
+            @RequestParam(required = false) String userIdentification,
+            @RequestParam(required = false) Long debitCode
+    ) {
+
+        return paymentStreamService.subscribe(userIdentification, debitCode);
+
+    }
+
+
+    @GetMapping("{id}")
+    @Operation(summary = "Rota para buscar um pagamento")
+    @ApiResponse(responseCode = "200", description = "Pagamento encontrado")
+    @ApiResponse(responseCode = "304", description = "Pagamento não foi alterado desde a versão informada")
+    @ApiResponse(responseCode = "404", description = "Pagamento não encontrado")
+    public ResponseEntity<PaymentDto> getPayment(@PathVariable UUID id, WebRequest webRequest) {
+
+        var payment = paymentService.getPayment(id);
+
+        var eTag = "\"" + payment.version() + "\"";
+
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+
+        return ResponseEntity.ok().eTag(eTag).body(payment.payment());
+
+    }
+
+
+    @GetMapping("export")
+    @Operation(summary = "Rota para exportar os pagamentos em NDJSON ou CSV")
+    @ApiResponse(responseCode = "200", description = "Pagamentos exportados com sucesso")
+    public ResponseEntity<StreamingResponseBody> exportPayments(
+            @RequestParam(required = false) Long debitCode,
+            @RequestParam(required = false) String userIdentification,
+            @RequestParam(required = false) List<PaymentStatus> status,
+            @RequestParam(required = false) BigDecimal minValue,
+            @RequestParam(required = false) BigDecimal maxValue,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant createdTo,
+            @RequestParam(defaultValue = "false") boolean includeArchived,
+            @RequestParam(defaultValue = "NDJSON") PaymentExportFormat format
+    ) {
+
+        var filter = new PaymentFilterDto(
+                debitCode, userIdentification, status, minValue, maxValue, createdFrom, createdTo, includeArchived
+        );
+
+        StreamingResponseBody body = outputStream -> {
+            var writer = format.open(outputStream, objectMapper);
+            paymentService.exportPayments(filter, writer);
+            writer.finish();
+        };
+
+        return ResponseEntity.ok()
+                .contentType(format.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"payments." + format.extension() + "\"")
+                .body(body);
+
+    }
+
+
     @DeleteMapping("/{id}")
     @Operation(summary = "Rota para excluir um pagamento")
     @ApiResponse(responseCode = "204", description = "Pagamento cancelado com sucesso")
     @ApiResponse(responseCode = "400", description = "Pagamento já havia sido concluido")
     @ApiResponse(responseCode = "404", description = "Pagamento não encontrado")
+    @ApiResponse(responseCode = "409", description = "Pagamento alterado por outra requisição")
     public ResponseEntity<?> deletePayment(@PathVariable UUID id) {
 
         paymentService.deletePayment(id);
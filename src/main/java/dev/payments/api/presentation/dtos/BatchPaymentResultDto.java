@@ -0,0 +1,17 @@
+package dev.payments.api.presentation.dtos;
+
+public record BatchPaymentResultDto(
+        int index,
+        PaymentDto payment,
+        String error
+) {
+
+    public static BatchPaymentResultDto success(int index, PaymentDto payment) {
+        return new BatchPaymentResultDto(index, payment, null);
+    }
+
+    public static BatchPaymentResultDto failure(int index, String error) {
+        return new BatchPaymentResultDto(index, null, error);
+    }
+
+}
@@ -1,6 +1,8 @@
 package dev.payments.api.presentation.dtos;
 
 import dev.payments.api.domain.entities.PaymentMethod;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
@@ -21,7 +23,10 @@ public record CreatePaymentDto(
 
         String cardNumber,
 
+        // Bounded so totals of many payments still fit in the summary's long cents.
         @NotNull
+        @DecimalMin("-99999999999.99")
+        @DecimalMax("99999999999.99")
         BigDecimal paymentValue
 
 ) {
@@ -1,5 +1,6 @@
 package dev.payments.api.presentation.dtos;
 
+import dev.payments.api.domain.entities.ArchivedPayment;
 import dev.payments.api.domain.entities.Payment;
 import dev.payments.api.domain.entities.PaymentMethod;
 import dev.payments.api.domain.entities.PaymentStatus;
@@ -27,4 +28,15 @@ public record PaymentDto(
         );
     }
 
+    public PaymentDto(ArchivedPayment payment) {
+        this(
+                payment.getId(),
+                payment.getDebitCode(),
+                payment.getUserIdentification(),
+                payment.getMethod(),
+                payment.getStatus(),
+                payment.getPaymentValue()
+        );
+    }
+
 }
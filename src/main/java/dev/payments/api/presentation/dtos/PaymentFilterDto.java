@@ -0,0 +1,24 @@
+package dev.payments.api.presentation.dtos;
+
+import dev.payments.api.domain.entities.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+public record PaymentFilterDto(
+        Long debitCode,
+        String userIdentification,
+        List<PaymentStatus> statuses,
+        BigDecimal minValue,
+        BigDecimal maxValue,
+        Instant createdFrom,
+        Instant createdTo,
+        boolean includeArchived
+) {
+
+    public static PaymentFilterDto empty() {
+        return new PaymentFilterDto(null, null, null, null, null, null, null, false);
+    }
+
+}
@@ -0,0 +1,7 @@
+package dev.payments.api.presentation.dtos;
+
+public record PaymentImportErrorDto(
+        long line,
+        String error
+) {
+}
@@ -0,0 +1,6 @@
+package dev.payments.api.presentation.dtos;
+
+public enum PaymentImportFormat {
+    NDJSON,
+    CSV
+}
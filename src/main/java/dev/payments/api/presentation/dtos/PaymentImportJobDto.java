@@ -0,0 +1,15 @@
+package dev.payments.api.presentation.dtos;
+
+import java.util.List;
+import java.util.UUID;
+
+public record PaymentImportJobDto(
+        UUID id,
+        PaymentImportStatus status,
+        long processedLines,
+        long importedPayments,
+        long failedLines,
+        List<PaymentImportErrorDto> errors,
+        String failure
+) {
+}
@@ -0,0 +1,7 @@
+package dev.payments.api.presentation.dtos;
+
+public enum PaymentImportStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
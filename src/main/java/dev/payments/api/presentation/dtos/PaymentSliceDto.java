@@ -0,0 +1,11 @@
+package dev.payments.api.presentation.dtos;
+
+import java.util.List;
+
+public record PaymentSliceDto(
+        List<PaymentDto> content,
+        int size,
+        boolean hasNext,
+        String nextCursor
+) {
+}
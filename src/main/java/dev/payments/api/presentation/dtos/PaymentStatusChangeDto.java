@@ -0,0 +1,32 @@
+package dev.payments.api.presentation.dtos;
+
+import dev.payments.api.domain.entities.PaymentStatus;
+import dev.payments.api.domain.events.PaymentChangeType;
+import dev.payments.api.domain.events.PaymentChangedEvent;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public record PaymentStatusChangeDto(
+        PaymentChangeType type,
+        UUID paymentId,
+        Long debitCode,
+        String userIdentification,
+        PaymentStatus previousStatus,
+        PaymentStatus status,
+        Instant occurredAt
+) {
+
+    public PaymentStatusChangeDto(PaymentChangedEvent event) {
+        this(
+                event.type(),
+                event.paymentId(),
+                event.debitCode(),
+                event.userIdentification(),
+                event.previousStatus(),
+                event.status(),
+                event.occurredAt()
+        );
+    }
+
+}
@@ -0,0 +1,18 @@
+package dev.payments.api.presentation.dtos;
+
+import dev.payments.api.domain.entities.PaymentMethod;
+import dev.payments.api.domain.entities.PaymentStatus;
+
+import java.util.Map;
+
+/**
+ * Totals of the non-cancelled payments of one user, or of every user when
+ * {@code userIdentification} is {@code null}.
+ */
+public record PaymentSummaryDto(
+        String userIdentification,
+        PaymentTotalsDto total,
+        Map<PaymentStatus, PaymentTotalsDto> byStatus,
+        Map<PaymentMethod, PaymentTotalsDto> byMethod
+) {
+}
@@ -0,0 +1,9 @@
+package dev.payments.api.presentation.dtos;
+
+import java.math.BigDecimal;
+
+public record PaymentTotalsDto(
+        long paymentCount,
+        BigDecimal totalValue
+) {
+}
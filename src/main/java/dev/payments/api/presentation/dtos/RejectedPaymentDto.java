@@ -0,0 +1,9 @@
+package dev.payments.api.presentation.dtos;
+
+import java.util.UUID;
+
+public record RejectedPaymentDto(
+        UUID id,
+        String reason
+) {
+}
@@ -0,0 +1,17 @@
+package dev.payments.api.presentation.dtos;
+
+import dev.payments.api.domain.entities.PaymentStatus;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.UUID;
+
+public record UpdatePaymentStatusBatchItemDto(
+
+        @NotNull
+        UUID id,
+
+        @NotNull
+        PaymentStatus status
+
+) {
+}
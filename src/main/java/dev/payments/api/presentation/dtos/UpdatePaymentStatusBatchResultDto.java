@@ -0,0 +1,10 @@
+package dev.payments.api.presentation.dtos;
+
+import java.util.List;
+import java.util.UUID;
+
+public record UpdatePaymentStatusBatchResultDto(
+        List<UUID> updated,
+        List<RejectedPaymentDto> rejected
+) {
+}
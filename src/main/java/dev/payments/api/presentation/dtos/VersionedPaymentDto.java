@@ -0,0 +1,19 @@
+package dev.payments.api.presentation.dtos;
+
+import dev.payments.api.domain.entities.ArchivedPayment;
+import dev.payments.api.domain.entities.Payment;
+
+public record VersionedPaymentDto(
+        PaymentDto payment,
+        long version
+) {
+
+    public VersionedPaymentDto(Payment payment) {
+        this(new PaymentDto(payment), payment.getVersion());
+    }
+
+    public VersionedPaymentDto(ArchivedPayment payment) {
+        this(new PaymentDto(payment), payment.getVersion());
+    }
+
+}
@@ -0,0 +1,93 @@
+package dev.payments.api.presentation.exports;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.payments.api.infrastructure.csv.CsvRecords;
+import dev.payments.api.presentation.dtos.PaymentDto;
+import org.springframework.http.MediaType;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+public enum PaymentExportFormat {
+
+    NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson") {
+        @Override
+        public PaymentExportWriter open(OutputStream outputStream, ObjectMapper objectMapper) throws IOException {
+
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            return new PaymentExportWriter() {
+                @Override
+                public void write(PaymentDto payment) throws IOException {
+                    generator.writeObject(payment);
+                    generator.writeRaw('\n');
+                }
+
+                @Override
+                public void finish() throws IOException {
+                    generator.flush();
+                }
+            };
+
+        }
+    },
+
+    CSV(MediaType.parseMediaType("text/csv"), "csv") {
+        @Override
+        public PaymentExportWriter open(OutputStream outputStream, ObjectMapper objectMapper) throws IOException {
+
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            writer.write("id,debitCode,userIdentification,method,status,paymentValue\n");
+
+            return new PaymentExportWriter() {
+                @Override
+                public void write(PaymentDto payment) throws IOException {
+                    writer.write(String.valueOf(payment.id()));
+                    writer.write(',');
+                    writer.write(String.valueOf(payment.debitCode()));
+                    writer.write(',');
+                    writer.write(CsvRecords.quote(payment.userIdentification()));
+                    writer.write(',');
+                    writer.write(String.valueOf(payment.method()));
+                    writer.write(',');
+                    writer.write(String.valueOf(payment.status()));
+                    writer.write(',');
+                    writer.write(payment.value() == null ? "" : payment.value().toPlainString());
+                    writer.write('\n');
+                }
+
+                @Override
+                public void finish() throws IOException {
+                    writer.flush();
+                }
+            };
+
+        }
+    };
+
+    private final MediaType mediaType;
+
+    private final String extension;
+
+    PaymentExportFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    public abstract PaymentExportWriter open(OutputStream outputStream, ObjectMapper objectMapper) throws IOException;
+
+}
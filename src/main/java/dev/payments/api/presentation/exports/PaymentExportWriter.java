@@ -0,0 +1,24 @@
+package dev.payments.api.presentation.exports;
+
+import dev.payments.api.presentation.dtos.PaymentDto;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+public interface PaymentExportWriter extends Consumer<PaymentDto> {
+
+    void write(PaymentDto payment) throws IOException;
+
+    void finish() throws IOException;
+
+    @Override
+    default void accept(PaymentDto payment) {
+        try {
+            write(payment);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
@@ -0,0 +1,10 @@
+package dev.payments.api.presentation.services;
+
+import dev.payments.api.presentation.dtos.CreatePaymentDto;
+import dev.payments.api.presentation.dtos.PaymentDto;
+
+import java.util.function.Supplier;
+
+public interface IdempotencyService {
+    PaymentDto execute(String idempotencyKey, CreatePaymentDto request, Supplier<PaymentDto> action);
+}
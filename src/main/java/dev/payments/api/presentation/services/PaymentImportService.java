@@ -0,0 +1,13 @@
+package dev.payments.api.presentation.services;
+
+import dev.payments.api.presentation.dtos.PaymentImportFormat;
+import dev.payments.api.presentation.dtos.PaymentImportJobDto;
+
+import java.io.InputStream;
+import java.util.UUID;
+
+public interface PaymentImportService {
+    PaymentImportJobDto startImport(InputStream body, PaymentImportFormat format);
+
+    PaymentImportJobDto getImportJob(UUID jobId);
+}
@@ -1,28 +1,40 @@
 package dev.payments.api.presentation.services;
 
+import dev.payments.api.presentation.dtos.BatchPaymentResultDto;
 import dev.payments.api.presentation.dtos.CreatePaymentDto;
 import dev.payments.api.presentation.dtos.PaymentDto;
+import dev.payments.api.presentation.dtos.PaymentFilterDto;
+import dev.payments.api.presentation.dtos.PaymentSliceDto;
+import dev.payments.api.presentation.dtos.UpdatePaymentStatusBatchItemDto;
+import dev.payments.api.presentation.dtos.UpdatePaymentStatusBatchResultDto;
 import dev.payments.api.presentation.dtos.UpdatePaymentStatusDto;
-import dev.payments.api.domain.entities.PaymentStatus;
+import dev.payments.api.presentation.dtos.VersionedPaymentDto;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface PaymentService {
     PaymentDto createPayment(CreatePaymentDto createPaymentDto);
 
+    List<BatchPaymentResultDto> createPayments(List<CreatePaymentDto> createPaymentDtos);
+
     PaymentDto updatePaymentStatus(
             UUID paymentId,
             UpdatePaymentStatusDto updatePaymentStatusDto
     );
 
-    Page<PaymentDto> getPayments(
-            Long debitCode,
-            PaymentStatus paymentStatus,
-            String userIdentification,
-            Pageable pageable
-    );
+    UpdatePaymentStatusBatchResultDto updatePaymentStatuses(List<UpdatePaymentStatusBatchItemDto> items);
+
+    Page<PaymentDto> getPayments(PaymentFilterDto filter, Pageable pageable);
+
+    PaymentSliceDto scrollPayments(PaymentFilterDto filter, String cursor, int size);
+
+    VersionedPaymentDto getPayment(UUID paymentId);
+
+    void exportPayments(PaymentFilterDto filter, Consumer<PaymentDto> consumer);
 
     void deletePayment(UUID paymentId);
 }
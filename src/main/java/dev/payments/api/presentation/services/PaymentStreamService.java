@@ -0,0 +1,9 @@
+package dev.payments.api.presentation.services;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface PaymentStreamService {
+
+    SseEmitter subscribe(String userIdentification, Long debitCode);
+
+}
@@ -0,0 +1,11 @@
+package dev.payments.api.presentation.services;
+
+import dev.payments.api.presentation.dtos.PaymentSummaryDto;
+
+public interface PaymentSummaryService {
+
+    PaymentSummaryDto getSummary(String userIdentification);
+
+    PaymentSummaryDto rebuildSummary();
+
+}
@@ -2,24 +2,30 @@ package dev.payments.api.controllers;
 
 import com.github.javafaker.Faker;
 import dev.payments.api.presentation.dtos.CreatePaymentDto;
+import dev.payments.api.presentation.dtos.PaymentDto;
 import dev.payments.api.presentation.dtos.UpdatePaymentStatusDto;
+import dev.payments.api.presentation.dtos.VersionedPaymentDto;
 import dev.payments.api.domain.entities.PaymentMethod;
 import dev.payments.api.domain.entities.PaymentStatus;
 import dev.payments.api.presentation.services.PaymentService;
 import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.json.AutoConfigureJsonTesters;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.json.JacksonTester;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Locale;
+import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -36,6 +42,9 @@ class PaymentControllerTest {
     @Autowired
     private JacksonTester<CreatePaymentDto> createPaymentDtoJson;
 
+    @Autowired
+    private JacksonTester<List<CreatePaymentDto>> createPaymentDtosJson;
+
     @Autowired
     private JacksonTester<UpdatePaymentStatusDto> updatePaymentDtoJson;
 
@@ -51,6 +60,25 @@ class PaymentControllerTest {
         assertThat(response.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST.value());
     }
 
+    @Test
+    void shouldThrowBadRequestOnOutOfRangeValueAtPostPayments() throws Exception {
+        var body = new CreatePaymentDto(
+                faker.number().randomNumber(),
+                faker.number().digits(11),
+                PaymentMethod.PIX,
+                null,
+                new BigDecimal("100000000000000000000")
+        );
+
+        var request = MockMvcRequestBuilders.post("/payments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(createPaymentDtoJson.write(body).getJson());
+
+        var response = mvc.perform(request).andReturn().getResponse();
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST.value());
+    }
+
     @Test
     void shouldReturnsCorrectlyOnSuccessfulPostPayments() throws Exception {
         var body = new CreatePaymentDto(
@@ -70,6 +98,25 @@ class PaymentControllerTest {
         assertThat(response.getStatus()).isEqualTo(HttpStatus.CREATED.value());
     }
 
+    @Test
+    void shouldReturnsCorrectlyOnSuccessfulPostPaymentsBatch() throws Exception {
+        var body = List.of(new CreatePaymentDto(
+                faker.number().randomNumber(),
+                faker.number().digits(11),
+                PaymentMethod.PIX,
+                null,
+                BigDecimal.valueOf(faker.number().randomNumber())
+        ));
+
+        var request = MockMvcRequestBuilders.post("/payments/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(createPaymentDtosJson.write(body).getJson());
+
+        var response = mvc.perform(request).andReturn().getResponse();
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+    }
+
     @Test
     void shouldThrowsBadRequestOnInvalidDataAtPutPayments() throws Exception {
         var paymentId = faker.internet().uuid();
@@ -109,6 +156,71 @@ class PaymentControllerTest {
         assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
     }
 
+    @Test
+    void shouldReturnsCorrectlyOnScrollPayments() throws Exception {
+        var request = MockMvcRequestBuilders.get("/payments/scroll").param("size", "50");
+
+        var response = mvc.perform(request).andReturn().getResponse();
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+    }
+
+    @Test
+    void shouldReturnsCorrectlyOnGetPaymentSummary() throws Exception {
+        var request = MockMvcRequestBuilders.get("/payments/summary").param("userIdentification", "12345678901");
+
+        var response = mvc.perform(request).andReturn().getResponse();
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+    }
+
+    @Test
+    void shouldThrowBadRequestWithoutFiltersAtStreamPayments() throws Exception {
+        var request = MockMvcRequestBuilders.get("/payments/stream").accept(MediaType.TEXT_EVENT_STREAM);
+
+        var response = mvc.perform(request).andReturn().getResponse();
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST.value());
+    }
+
+    @Test
+    void shouldReturnsCorrectlyOnExportPayments() throws Exception {
+        var request = MockMvcRequestBuilders.get("/payments/export").param("format", "CSV");
+
+        var response = mvc.perform(request).andReturn().getResponse();
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(response.getContentType()).isEqualTo("text/csv");
+    }
+
+    @Test
+    void shouldReturnsPaymentWithETagOnGetPayment() throws Exception {
+        var paymentId = UUID.randomUUID();
+
+        Mockito.when(paymentService.getPayment(paymentId)).thenReturn(versionedPayment(paymentId, 2));
+
+        var request = MockMvcRequestBuilders.get(String.format("/payments/%s", paymentId));
+
+        var response = mvc.perform(request).andReturn().getResponse();
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("\"2\"");
+    }
+
+    @Test
+    void shouldReturnsNotModifiedWhenETagMatchesOnGetPayment() throws Exception {
+        var paymentId = UUID.randomUUID();
+
+        Mockito.when(paymentService.getPayment(paymentId)).thenReturn(versionedPayment(paymentId, 2));
+
+        var request = MockMvcRequestBuilders.get(String.format("/payments/%s", paymentId))
+                .header(HttpHeaders.IF_NONE_MATCH, "\"2\"");
+
+        var response = mvc.perform(request).andReturn().getResponse();
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+    }
+
     @Test
     void shouldReturnsCorrectlyOnSuccessfulDeletePayments() throws Exception {
         var paymentId = faker.internet().uuid();
@@ -122,4 +234,17 @@ class PaymentControllerTest {
         assertThat(response.getStatus()).isEqualTo(HttpStatus.NO_CONTENT.value());
     }
 
+    private VersionedPaymentDto versionedPayment(UUID paymentId, long version) {
+        var payment = new PaymentDto(
+                paymentId,
+                faker.number().randomNumber(),
+                faker.number().digits(11),
+                PaymentMethod.PIX,
+                PaymentStatus.PENDING,
+                BigDecimal.valueOf(faker.number().randomNumber())
+        );
+
+        return new VersionedPaymentDto(payment, version);
+    }
+
 }
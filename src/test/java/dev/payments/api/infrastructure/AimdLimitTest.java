@@ -0,0 +1,55 @@
+package dev.payments.api.infrastructure;
+
+import dev.payments.api.infrastructure.limiting.AimdLimit;
+import dev.payments.api.infrastructure.limiting.StripedTokenBuckets;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AimdLimitTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    @Test
+    void shouldShedBeyondTheLimitAndBackOffOncePerRoundTrip() {
+        var limit = new AimdLimit(10, 2, 20, Duration.ofMillis(100), 0.5);
+
+        for (int call = 0; call < 10; call++) {
+            assertThat(limit.tryAcquire()).isTrue();
+        }
+        assertThat(limit.tryAcquire()).isFalse();
+
+        // Ten slow calls admitted together only halve the limit once.
+        for (int call = 0; call < 10; call++) {
+            limit.release(0, 500 * MILLIS, false);
+        }
+        assertThat(limit.getLimit()).isEqualTo(5);
+
+        // A call admitted after that backoff may shrink it again.
+        assertThat(limit.tryAcquire()).isTrue();
+        limit.release(600 * MILLIS, 1_200 * MILLIS, true);
+        assertThat(limit.getLimit()).isEqualTo(2);
+
+        // Fast calls grow it back while it is in use.
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.tryAcquire()).isTrue();
+        limit.release(1_300 * MILLIS, 1_310 * MILLIS, false);
+        limit.release(1_300 * MILLIS, 1_310 * MILLIS, false);
+        assertThat(limit.getLimit()).isEqualTo(3);
+        assertThat(limit.getInFlight()).isZero();
+    }
+
+    @Test
+    void shouldRefillUserBucketsAtTheirRate() {
+        var buckets = new StripedTokenBuckets(64, 10, 2);
+
+        assertThat(buckets.tryAcquire("12345678901", 0)).isZero();
+        assertThat(buckets.tryAcquire("12345678901", 0)).isZero();
+        assertThat(buckets.tryAcquire("12345678901", 0)).isEqualTo(100 * MILLIS);
+
+        assertThat(buckets.tryAcquire("12345678901", 100 * MILLIS)).isZero();
+    }
+
+}
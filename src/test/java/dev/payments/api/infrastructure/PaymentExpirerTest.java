@@ -0,0 +1,148 @@
+package dev.payments.api.infrastructure;
+
+import dev.payments.api.domain.entities.PaymentMethod;
+import dev.payments.api.domain.entities.PaymentStatus;
+import dev.payments.api.domain.events.PaymentChangeType;
+import dev.payments.api.domain.events.PaymentChangedEvent;
+import dev.payments.api.domain.repositories.PaymentRepository;
+import dev.payments.api.domain.repositories.StalePaymentView;
+import dev.payments.api.infrastructure.expiry.PaymentExpirer;
+import dev.payments.api.infrastructure.expiry.PaymentExpiryAction;
+import dev.payments.api.infrastructure.metrics.PaymentMetrics;
+import dev.payments.api.infrastructure.sharding.PaymentShards;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+public class PaymentExpirerTest {
+
+    private static final List<PaymentStatus> PENDING_ONLY = List.of(PaymentStatus.PENDING);
+
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private Cache paymentCache;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        Mockito.when(transactionManager.getTransaction(ArgumentMatchers.any()))
+                .thenAnswer(invocation -> new SimpleTransactionStatus());
+    }
+
+    @Test
+    void shouldExpireFullChunksAndSeekPastTheWatermark() {
+        var first = stalePayment(new Date(1_000));
+        var secondCreatedAt = new Date(2_000);
+        var second = stalePayment(secondCreatedAt);
+        var secondId = second.getId();
+
+        Mockito.when(paymentRepository.findStalePayments(
+                ArgumentMatchers.eq(PaymentStatus.PENDING),
+                ArgumentMatchers.any(),
+                ArgumentMatchers.any(),
+                ArgumentMatchers.any(),
+                ArgumentMatchers.eq(PageRequest.of(0, 2))
+        )).thenReturn(List.of(first, second), List.of());
+        Mockito.when(paymentRepository.updateStatusByIdIn(List.of(first.getId(), secondId), PENDING_ONLY, PaymentStatus.FAILED))
+                .thenReturn(2);
+
+        expirer(PaymentExpiryAction.FAIL).expire();
+
+        Mockito.verify(paymentRepository).findStalePayments(
+                ArgumentMatchers.eq(PaymentStatus.PENDING),
+                ArgumentMatchers.any(),
+                ArgumentMatchers.eq(secondCreatedAt),
+                ArgumentMatchers.eq(secondId),
+                ArgumentMatchers.eq(PageRequest.of(0, 2))
+        );
+        Mockito.verify(eventPublisher, Mockito.times(2)).publishEvent(ArgumentMatchers.any(PaymentChangedEvent.class));
+        Mockito.verify(paymentCache).evict(first.getId());
+        Mockito.verify(paymentCache).evict(secondId);
+        assertThat(meterRegistry.get("payments.expired").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldRedoAContendedChunkRowByRow() {
+        var expired = stalePayment(new Date(1_000));
+        var changedMeanwhile = stalePayment(new Date(2_000));
+        var ids = List.of(expired.getId(), changedMeanwhile.getId());
+
+        Mockito.when(paymentRepository.findStalePayments(
+                ArgumentMatchers.eq(PaymentStatus.PENDING),
+                ArgumentMatchers.any(),
+                ArgumentMatchers.any(),
+                ArgumentMatchers.any(),
+                ArgumentMatchers.any()
+        )).thenReturn(List.of(expired, changedMeanwhile), List.of());
+        Mockito.when(paymentRepository.cancelByIdIn(ids, PENDING_ONLY)).thenReturn(1);
+        Mockito.when(paymentRepository.cancel(expired.getId(), 0L, PENDING_ONLY)).thenReturn(1);
+        Mockito.when(paymentRepository.cancel(changedMeanwhile.getId(), 0L, PENDING_ONLY)).thenReturn(0);
+
+        expirer(PaymentExpiryAction.CANCEL).expire();
+
+        Mockito.verify(eventPublisher).publishEvent(ArgumentMatchers.<PaymentChangedEvent>argThat(
+                event -> event.type() == PaymentChangeType.CANCELLED && event.paymentId().equals(expired.getId())
+        ));
+        Mockito.verifyNoMoreInteractions(eventPublisher);
+        assertThat(meterRegistry.get("payments.expired").counter().count()).isEqualTo(1);
+    }
+
+    private PaymentExpirer expirer(PaymentExpiryAction action) {
+        return new PaymentExpirer(
+                paymentRepository,
+                eventPublisher,
+                new PaymentMetrics(meterRegistry),
+                paymentCache,
+                transactionManager,
+                PaymentShards.single(),
+                meterRegistry,
+                action,
+                Duration.ofHours(24),
+                2,
+                10,
+                Duration.ZERO
+        );
+    }
+
+    private static StalePaymentView stalePayment(Date createdAt) {
+        var id = UUID.randomUUID();
+        var view = Mockito.mock(StalePaymentView.class);
+        Mockito.when(view.getId()).thenReturn(id);
+        Mockito.lenient().when(view.getVersion()).thenReturn(0L);
+        Mockito.lenient().when(view.getStatus()).thenReturn(PaymentStatus.PENDING);
+        Mockito.lenient().when(view.getUserIdentification()).thenReturn("12345678901");
+        Mockito.lenient().when(view.getMethod()).thenReturn(PaymentMethod.PIX);
+        Mockito.lenient().when(view.getPaymentValue()).thenReturn(BigDecimal.TEN);
+        Mockito.lenient().when(view.getCreatedAt()).thenReturn(createdAt);
+        return view;
+    }
+
+}
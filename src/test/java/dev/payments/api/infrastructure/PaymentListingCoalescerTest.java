@@ -0,0 +1,169 @@
+package dev.payments.api.infrastructure;
+
+import dev.payments.api.domain.entities.Payment;
+import dev.payments.api.domain.entities.PaymentStatus;
+import dev.payments.api.domain.events.PaymentChangedEvent;
+import dev.payments.api.infrastructure.coalescing.PaymentListingCoalescer;
+import dev.payments.api.infrastructure.routing.ReadWriteRoutingDataSource;
+import dev.payments.api.presentation.dtos.PaymentDto;
+import dev.payments.api.presentation.dtos.PaymentFilterDto;
+import dev.payments.api.presentation.services.PaymentService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PaymentListingCoalescerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final PaymentService paymentService = Mockito.mock(PaymentService.class);
+
+    @Test
+    void shouldShareOneQueryBetweenIdenticalConcurrentListings() throws Exception {
+        var coalescer = coalescer(Duration.ZERO);
+        var service = proxy(coalescer);
+
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        Page<PaymentDto> page = new PageImpl<>(List.of());
+
+        Mockito.when(paymentService.getPayments(ArgumentMatchers.any(), ArgumentMatchers.any())).thenAnswer(invocation -> {
+            started.countDown();
+            assertThat(release.await(5, TimeUnit.SECONDS)).isTrue();
+            return page;
+        });
+
+        var first = CompletableFuture.supplyAsync(() -> service.getPayments(PaymentFilterDto.empty(), PageRequest.of(0, 20)));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        var second = CompletableFuture.supplyAsync(() -> service.getPayments(PaymentFilterDto.empty(), PageRequest.of(0, 20)));
+
+        while (count("joined") < 1) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isSameAs(page);
+        assertThat(second.get(5, TimeUnit.SECONDS)).isSameAs(page);
+        assertThat(count("executed")).isEqualTo(1);
+
+        Mockito.verify(paymentService, Mockito.times(1)).getPayments(ArgumentMatchers.any(), ArgumentMatchers.any());
+    }
+
+    @Test
+    void shouldKeepPagesUntilAPaymentChanges() {
+        var coalescer = coalescer(Duration.ofMinutes(1));
+        var service = proxy(coalescer);
+
+        Mockito.when(paymentService.getPayments(ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenAnswer(invocation -> new PageImpl<PaymentDto>(List.of()));
+
+        service.getPayments(PaymentFilterDto.empty(), PageRequest.of(0, 20));
+        service.getPayments(PaymentFilterDto.empty(), PageRequest.of(0, 20));
+        service.getPayments(PaymentFilterDto.empty(), PageRequest.of(1, 20));
+
+        assertThat(count("cached")).isEqualTo(1);
+        assertThat(count("executed")).isEqualTo(2);
+
+        var payment = new Payment();
+        payment.setId(UUID.randomUUID());
+        payment.setStatus(PaymentStatus.PENDING);
+        coalescer.onPaymentChanged(PaymentChangedEvent.created(payment));
+
+        service.getPayments(PaymentFilterDto.empty(), PageRequest.of(0, 20));
+
+        assertThat(count("executed")).isEqualTo(3);
+    }
+
+    @Test
+    void shouldDropKeptPagesOnceWhenTheChangingTransactionCommits() {
+        var coalescer = coalescer(Duration.ofMinutes(1));
+        var service = proxy(coalescer);
+
+        Mockito.when(paymentService.getPayments(ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenAnswer(invocation -> new PageImpl<PaymentDto>(List.of()));
+
+        service.getPayments(PaymentFilterDto.empty(), PageRequest.of(0, 20));
+
+        var payment = new Payment();
+        payment.setId(UUID.randomUUID());
+        payment.setStatus(PaymentStatus.PENDING);
+
+        TransactionSynchronizationManager.initSynchronization();
+
+        try {
+            coalescer.onPaymentChanged(PaymentChangedEvent.created(payment));
+            coalescer.onPaymentChanged(PaymentChangedEvent.created(payment));
+            assertThat(TransactionSynchronizationManager.getSynchronizations()).hasSize(1);
+
+            service.getPayments(PaymentFilterDto.empty(), PageRequest.of(0, 20));
+            assertThat(count("cached")).isEqualTo(1);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        service.getPayments(PaymentFilterDto.empty(), PageRequest.of(0, 20));
+
+        assertThat(count("executed")).isEqualTo(2);
+    }
+
+    @Test
+    void shouldBypassCoalescingForReadsPinnedToThePrimary() {
+        var service = proxy(coalescer(Duration.ofMinutes(1)));
+
+        Mockito.when(paymentService.getPayments(ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenAnswer(invocation -> new PageImpl<PaymentDto>(List.of()));
+
+        service.getPayments(PaymentFilterDto.empty(), PageRequest.of(0, 20));
+
+        ReadWriteRoutingDataSource.pinToPrimary();
+        try {
+            service.getPayments(PaymentFilterDto.empty(), PageRequest.of(0, 20));
+        } finally {
+            ReadWriteRoutingDataSource.unpin();
+        }
+
+        assertThat(count("bypassed")).isEqualTo(1);
+        assertThat(count("cached")).isZero();
+        Mockito.verify(paymentService, Mockito.times(2)).getPayments(ArgumentMatchers.any(), ArgumentMatchers.any());
+    }
+
+    private PaymentListingCoalescer coalescer(Duration ttl) {
+        var beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("meterRegistry", meterRegistry);
+        return new PaymentListingCoalescer(beanFactory.getBeanProvider(MeterRegistry.class), ttl, 100);
+    }
+
+    private PaymentService proxy(PaymentListingCoalescer coalescer) {
+        var proxyFactory = new ProxyFactory(paymentService);
+        proxyFactory.addAdvice(coalescer);
+        return (PaymentService) proxyFactory.getProxy();
+    }
+
+    private double count(String outcome) {
+        var counter = meterRegistry.find("payments.listing.requests").tag("outcome", outcome).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+}
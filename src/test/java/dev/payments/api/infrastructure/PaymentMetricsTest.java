@@ -0,0 +1,45 @@
+package dev.payments.api.infrastructure;
+
+import dev.payments.api.domain.entities.PaymentStatus;
+import dev.payments.api.infrastructure.metrics.PaymentMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PaymentMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final PaymentMetrics paymentMetrics = new PaymentMetrics(meterRegistry);
+
+    @Test
+    void shouldOnlyCountTransitionsOnceTheirTransactionCommits() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        try {
+            paymentMetrics.recordTransition(PaymentStatus.PENDING, PaymentStatus.SUCCESS, 2);
+            paymentMetrics.recordCancellation(PaymentStatus.PENDING);
+            assertThat(transitions()).isZero();
+            assertThat(TransactionSynchronizationManager.getSynchronizations()).hasSize(1);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            assertThat(transitions()).isEqualTo(2);
+            assertThat(meterRegistry.get("payments.cancellations").tag("from", "PENDING").counter().count()).isEqualTo(1);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        paymentMetrics.recordTransition(PaymentStatus.PENDING, PaymentStatus.SUCCESS, 1);
+        assertThat(transitions()).isEqualTo(3);
+    }
+
+    private double transitions() {
+        return meterRegistry.get("payments.status.transitions").tag("from", "PENDING").tag("to", "SUCCESS").counter().count();
+    }
+
+}
@@ -0,0 +1,118 @@
+package dev.payments.api.infrastructure;
+
+import dev.payments.api.domain.entities.PaymentOutboxEvent;
+import dev.payments.api.domain.events.PaymentChangeType;
+import dev.payments.api.domain.repositories.PaymentOutboxRepository;
+import dev.payments.api.infrastructure.outbox.PaymentEventSink;
+import dev.payments.api.infrastructure.outbox.PaymentOutboxRelay;
+import dev.payments.api.infrastructure.sharding.PaymentShards;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+public class PaymentOutboxRelayTest {
+
+    @Mock
+    private PaymentOutboxRepository paymentOutboxRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void shouldPublishInOrderDeleteAndGrowTheBatchWhileFull() {
+        var published = new ArrayList<Long>();
+        PaymentEventSink sink = events -> events.forEach(event -> published.add(event.getId()));
+
+        Mockito.when(paymentOutboxRepository.findByOrderByIdAsc(PageRequest.of(0, 2))).thenReturn(events(1, 2));
+        Mockito.when(paymentOutboxRepository.findByOrderByIdAsc(PageRequest.of(0, 4))).thenReturn(events(3, 3));
+
+        relay(sink).relay();
+
+        assertThat(published).containsExactly(1L, 2L, 3L);
+        Mockito.verify(paymentOutboxRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        Mockito.verify(paymentOutboxRepository).deleteAllByIdInBatch(List.of(3L));
+        assertThat(meterRegistry.get("payments.outbox.batch.size").gauge().value()).isEqualTo(4);
+    }
+
+    @Test
+    void shouldKeepEventsAndShrinkTheBatchWhenTheSinkFails() {
+        var calls = new AtomicInteger();
+        PaymentEventSink sink = events -> {
+            if (calls.incrementAndGet() > 1) {
+                throw new IllegalStateException("sink down");
+            }
+        };
+
+        Mockito.when(paymentOutboxRepository.findByOrderByIdAsc(PageRequest.of(0, 2))).thenReturn(events(1, 2));
+        Mockito.when(paymentOutboxRepository.findByOrderByIdAsc(PageRequest.of(0, 4))).thenReturn(events(3, 6));
+
+        relay(sink).relay();
+
+        Mockito.verify(paymentOutboxRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        Mockito.verify(paymentOutboxRepository, Mockito.never()).deleteAllByIdInBatch(List.of(3L, 4L, 5L, 6L));
+        assertThat(meterRegistry.get("payments.outbox.batch.size").gauge().value()).isEqualTo(2);
+        assertThat(meterRegistry.get("payments.outbox.failures").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldStopAfterTheBatchLimitAndReportTheLag() {
+        var batches = new AtomicInteger();
+        PaymentEventSink sink = events -> batches.incrementAndGet();
+
+        Mockito.when(paymentOutboxRepository.findByOrderByIdAsc(Mockito.any())).thenAnswer(invocation -> {
+            int size = invocation.<PageRequest>getArgument(0).getPageSize();
+            return events(1, size, Instant.now().minusSeconds(60));
+        });
+
+        relay(sink).relay();
+
+        assertThat(batches.get()).isEqualTo(3);
+        assertThat(meterRegistry.get("payments.outbox.lag").gauge().value()).isGreaterThanOrEqualTo(60);
+    }
+
+    private PaymentOutboxRelay relay(PaymentEventSink sink) {
+        return new PaymentOutboxRelay(
+                paymentOutboxRepository,
+                sink,
+                transactionManager,
+                PaymentShards.single(),
+                meterRegistry,
+                2,
+                16,
+                3,
+                Duration.ofSeconds(10)
+        );
+    }
+
+    private static List<PaymentOutboxEvent> events(long firstId, long lastId) {
+        return events(firstId, lastId, Instant.now());
+    }
+
+    private static List<PaymentOutboxEvent> events(long firstId, long lastId, Instant createdAt) {
+        return LongStream.rangeClosed(firstId, lastId).mapToObj(id -> {
+            var event = new PaymentOutboxEvent(UUID.randomUUID(), PaymentChangeType.CREATED, "{}", createdAt);
+            ReflectionTestUtils.setField(event, "id", id);
+            return event;
+        }).toList();
+    }
+
+}
@@ -0,0 +1,70 @@
+package dev.payments.api.infrastructure;
+
+import dev.payments.api.infrastructure.routing.ReadWriteRoutingDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReadWriteRoutingDataSourceTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate readWriteTransaction;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    @BeforeEach
+    void setUp() {
+        var routingDataSource = new ReadWriteRoutingDataSource(database("primary"), database("replica"));
+        routingDataSource.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+
+        var transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readWriteTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Test
+    void shouldSendReadOnlyTransactionsToTheReplicaAndTheRestToThePrimary() {
+        assertThat(readOnlyTransaction.<String>execute(status -> instance())).isEqualTo("replica");
+        assertThat(readWriteTransaction.<String>execute(status -> instance())).isEqualTo("primary");
+        assertThat(instance()).isEqualTo("primary");
+    }
+
+    @Test
+    void shouldSendPinnedReadsToThePrimary() {
+        ReadWriteRoutingDataSource.pinToPrimary();
+
+        try {
+            assertThat(readOnlyTransaction.<String>execute(status -> instance())).isEqualTo("primary");
+        } finally {
+            ReadWriteRoutingDataSource.unpin();
+        }
+
+        assertThat(readOnlyTransaction.<String>execute(status -> instance())).isEqualTo("replica");
+    }
+
+    private String instance() {
+        return jdbcTemplate.queryForObject("SELECT name FROM instance", String.class);
+    }
+
+    private static DataSource database(String name) {
+        var dataSource = new DriverManagerDataSource("jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        var jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS instance (name VARCHAR(16))");
+        jdbcTemplate.execute("DELETE FROM instance");
+        jdbcTemplate.update("INSERT INTO instance (name) VALUES (?)", name);
+        return dataSource;
+    }
+
+}
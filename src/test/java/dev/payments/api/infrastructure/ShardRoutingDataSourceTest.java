@@ -0,0 +1,89 @@
+package dev.payments.api.infrastructure;
+
+import dev.payments.api.infrastructure.hibernate.TimeOrderedUuidGenerator;
+import dev.payments.api.infrastructure.sharding.PaymentShards;
+import dev.payments.api.infrastructure.sharding.ShardRoutingDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ShardRoutingDataSourceTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate transaction;
+
+    private PaymentShards paymentShards;
+
+    @BeforeEach
+    void setUp() {
+        var routingDataSource = new ShardRoutingDataSource(List.of(database(0), database(1), database(2)));
+        routingDataSource.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        paymentShards = new PaymentShards(3, Executors.newFixedThreadPool(3));
+    }
+
+    @AfterEach
+    void tearDown() {
+        paymentShards.close();
+    }
+
+    @Test
+    void shouldRunATransactionOnTheShardBoundBeforeItsFirstStatement() {
+        assertThat(transaction.<String>execute(status -> {
+            paymentShards.bindToTransaction(2);
+            return instance();
+        })).isEqualTo("shard-2");
+
+        assertThat(instance()).isEqualTo("shard-0");
+        assertThat(paymentShards.scatter(shard -> instance())).containsExactly("shard-0", "shard-1", "shard-2");
+    }
+
+    @Test
+    void shouldRefuseToBindAShardOutsideATransaction() {
+        assertThatThrownBy(() -> paymentShards.bindToTransaction(2)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> PaymentShards.single().bindToTransaction(0)).isInstanceOf(IllegalStateException.class);
+        assertThat(ShardRoutingDataSource.currentShard()).isNull();
+    }
+
+    @Test
+    void shouldResolveTheShardFromIdsGeneratedOnIt() {
+        var generator = new TimeOrderedUuidGenerator();
+
+        UUID id = paymentShards.callOn(1, () -> (UUID) generator.generate(null, null));
+
+        assertThat(paymentShards.shardOf(id)).isEqualTo(1);
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+    }
+
+    private String instance() {
+        return jdbcTemplate.queryForObject("SELECT name FROM instance", String.class);
+    }
+
+    private static DataSource database(int shard) {
+        var dataSource = new DriverManagerDataSource("jdbc:h2:mem:sharding-" + shard + ";DB_CLOSE_DELAY=-1", "sa", "");
+        var jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS instance (name VARCHAR(16))");
+        jdbcTemplate.execute("DELETE FROM instance");
+        jdbcTemplate.update("INSERT INTO instance (name) VALUES (?)", "shard-" + shard);
+        return dataSource;
+    }
+
+}
@@ -0,0 +1,55 @@
+package dev.payments.api.infrastructure;
+
+import dev.payments.api.infrastructure.hibernate.TimeOrderedUuidGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimeOrderedUuidGeneratorTest {
+
+    @Test
+    void shouldGenerateVersion7Uuids() {
+        var uuid = TimeOrderedUuidGenerator.nextUuid();
+
+        assertThat(uuid.version()).isEqualTo(7);
+        assertThat(uuid.variant()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldEmbedTheCurrentTimestamp() {
+        var before = System.currentTimeMillis();
+        var uuid = TimeOrderedUuidGenerator.nextUuid();
+
+        var millis = uuid.getMostSignificantBits() >>> 16;
+
+        assertThat(millis).isGreaterThanOrEqualTo(before);
+    }
+
+    @Test
+    void shouldGenerateStrictlyIncreasingUuids() {
+        List<UUID> uuids = new ArrayList<>();
+
+        for (int i = 0; i < 100_000; i++) {
+            uuids.add(TimeOrderedUuidGenerator.nextUuid());
+        }
+
+        for (int i = 1; i < uuids.size(); i++) {
+            assertThat(compareUnsigned(uuids.get(i - 1), uuids.get(i))).isNegative();
+        }
+    }
+
+    private static int compareUnsigned(UUID first, UUID second) {
+        int mostSignificant = Long.compareUnsigned(first.getMostSignificantBits(), second.getMostSignificantBits());
+
+        if (mostSignificant != 0) {
+            return mostSignificant;
+        }
+
+        return Long.compareUnsigned(first.getLeastSignificantBits(), second.getLeastSignificantBits());
+    }
+
+}
@@ -0,0 +1,189 @@
+package dev.payments.api.services;
+
+import dev.payments.api.domain.entities.ArchivedPayment;
+import dev.payments.api.domain.entities.IdempotencyKey;
+import dev.payments.api.domain.entities.IdempotencyKeyId;
+import dev.payments.api.domain.entities.Payment;
+import dev.payments.api.domain.entities.PaymentMethod;
+import dev.payments.api.domain.entities.PaymentStatus;
+import dev.payments.api.domain.repositories.ArchivedPaymentRepository;
+import dev.payments.api.domain.repositories.IdempotencyKeyRepository;
+import dev.payments.api.domain.repositories.PaymentRepository;
+import dev.payments.api.domain.services.IdempotencyServiceImpl;
+import dev.payments.api.infrastructure.sharding.PaymentShards;
+import dev.payments.api.presentation.dtos.CreatePaymentDto;
+import dev.payments.api.presentation.dtos.PaymentDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@ExtendWith(MockitoExtension.class)
+public class IdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    @Mock
+    private ArchivedPaymentRepository archivedPaymentRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private IdempotencyServiceImpl idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyServiceImpl(
+                idempotencyKeyRepository,
+                paymentRepository,
+                archivedPaymentRepository,
+                transactionManager,
+                PaymentShards.single(),
+                Duration.ofMinutes(1),
+                100
+        );
+    }
+
+    @Test
+    void shouldReturnStoredResponseWithoutRunningTheActionAgain() {
+        var calls = new AtomicInteger();
+        var payment = paymentDto();
+
+        var first = idempotencyService.execute("key", request("12345678901", 10), () -> {
+            calls.incrementAndGet();
+            return payment;
+        });
+
+        var second = idempotencyService.execute("key", request("12345678901", 10), () -> {
+            calls.incrementAndGet();
+            return paymentDto();
+        });
+
+        assertThat(first).isEqualTo(payment);
+        assertThat(second).isEqualTo(payment);
+        assertThat(calls).hasValue(1);
+
+        Mockito.verify(idempotencyKeyRepository, Mockito.times(1)).saveAndFlush(Mockito.any(IdempotencyKey.class));
+    }
+
+    @Test
+    void shouldReturnPaymentStoredInDatabaseOnCacheMiss() {
+        var payment = new Payment();
+        payment.setId(UUID.randomUUID());
+        payment.setStatus(PaymentStatus.PENDING);
+
+        var request = request("12345678901", 10);
+        var storedKey = new IdempotencyKey(
+                new IdempotencyKeyId("12345678901", "key"), storedRequestHash(request), payment.getId()
+        );
+
+        Mockito.when(idempotencyKeyRepository.findById(new IdempotencyKeyId("12345678901", "key")))
+                .thenReturn(Optional.of(storedKey));
+        Mockito.when(paymentRepository.findById(payment.getId())).thenReturn(Optional.of(payment));
+
+        var response = idempotencyService.execute("key", request, () -> {
+            throw new IllegalStateException("should not run");
+        });
+
+        assertThat(response.id()).isEqualTo(payment.getId());
+    }
+
+    @Test
+    void shouldReturnArchivedPaymentWhenTheKeyOutlivesItsRow() {
+        var paymentId = UUID.randomUUID();
+        var request = request("12345678901", 10);
+
+        var archivedPayment = Mockito.mock(ArchivedPayment.class);
+        Mockito.when(archivedPayment.getId()).thenReturn(paymentId);
+        Mockito.when(archivedPayment.getStatus()).thenReturn(PaymentStatus.SUCCESS);
+
+        var storedKey = new IdempotencyKey(new IdempotencyKeyId("12345678901", "key"), storedRequestHash(request), paymentId);
+
+        Mockito.when(idempotencyKeyRepository.findById(new IdempotencyKeyId("12345678901", "key")))
+                .thenReturn(Optional.of(storedKey));
+        Mockito.when(paymentRepository.findById(paymentId)).thenReturn(Optional.empty());
+        Mockito.when(archivedPaymentRepository.findById(paymentId)).thenReturn(Optional.of(archivedPayment));
+
+        var response = idempotencyService.execute("key", request, () -> {
+            throw new IllegalStateException("should not run");
+        });
+
+        assertThat(response.id()).isEqualTo(paymentId);
+        assertThat(response.status()).isEqualTo(PaymentStatus.SUCCESS);
+    }
+
+    @Test
+    void shouldForgetKeyWhenTheActionFails() {
+        assertThatThrownBy(() -> idempotencyService.execute("key", request("12345678901", 10), () -> {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST);
+        })).isInstanceOf(ResponseStatusException.class);
+
+        var payment = paymentDto();
+
+        assertThat(idempotencyService.execute("key", request("12345678901", 10), () -> payment)).isEqualTo(payment);
+    }
+
+    @Test
+    void shouldScopeKeysToTheUserAndRejectAnotherPayloadUnderTheSameKey() {
+        var payment = paymentDto();
+        var otherUsersPayment = paymentDto();
+
+        idempotencyService.execute("key", request("12345678901", 10), () -> payment);
+
+        assertThat(idempotencyService.execute("key", request("10987654321", 10), () -> otherUsersPayment))
+                .isEqualTo(otherUsersPayment);
+        assertThat(idempotencyService.execute("key", request("12345678901", 10.00), () -> paymentDto()))
+                .isEqualTo(payment);
+
+        assertThatThrownBy(() -> idempotencyService.execute("key", request("12345678901", 20), () -> paymentDto()))
+                .isInstanceOfSatisfying(ResponseStatusException.class, e ->
+                        assertThat(e.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY));
+    }
+
+    // Runs a request through the service so the hash is computed as it would be stored.
+    private String storedRequestHash(CreatePaymentDto request) {
+        var captor = ArgumentCaptor.forClass(IdempotencyKey.class);
+        var probe = new IdempotencyServiceImpl(
+                idempotencyKeyRepository, paymentRepository, archivedPaymentRepository, transactionManager, PaymentShards.single(), Duration.ofMinutes(1), 100
+        );
+        probe.execute("probe", request, IdempotencyServiceTest::paymentDto);
+        Mockito.verify(idempotencyKeyRepository).saveAndFlush(captor.capture());
+        Mockito.clearInvocations(idempotencyKeyRepository);
+        return captor.getValue().getRequestHash();
+    }
+
+    private static CreatePaymentDto request(String userIdentification, double value) {
+        return new CreatePaymentDto(1L, userIdentification, PaymentMethod.PIX, null, BigDecimal.valueOf(value));
+    }
+
+    private static PaymentDto paymentDto() {
+        return new PaymentDto(
+                UUID.randomUUID(),
+                1L,
+                "12345678901",
+                PaymentMethod.PIX,
+                PaymentStatus.PENDING,
+                BigDecimal.TEN
+        );
+    }
+
+}
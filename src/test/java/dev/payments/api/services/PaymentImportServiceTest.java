@@ -0,0 +1,132 @@
+package dev.payments.api.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.payments.api.domain.entities.PaymentMethod;
+import dev.payments.api.domain.entities.PaymentStatus;
+import dev.payments.api.domain.services.PaymentImportServiceImpl;
+import dev.payments.api.presentation.dtos.BatchPaymentResultDto;
+import dev.payments.api.presentation.dtos.CreatePaymentDto;
+import dev.payments.api.presentation.dtos.PaymentDto;
+import dev.payments.api.presentation.dtos.PaymentImportFormat;
+import dev.payments.api.presentation.dtos.PaymentImportJobDto;
+import dev.payments.api.presentation.dtos.PaymentImportStatus;
+import dev.payments.api.presentation.exports.PaymentExportFormat;
+import dev.payments.api.presentation.services.PaymentService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PaymentImportServiceTest {
+
+    private PaymentService paymentService;
+
+    private PaymentImportServiceImpl paymentImportService;
+
+    @BeforeEach
+    void setUp() {
+        paymentService = Mockito.mock(PaymentService.class);
+        paymentImportService = new PaymentImportServiceImpl(paymentService, new ObjectMapper(), 1);
+
+        Mockito.when(paymentService.createPayments(Mockito.anyList())).thenAnswer(invocation -> {
+            List<CreatePaymentDto> payments = invocation.getArgument(0);
+            return IntStream.range(0, payments.size())
+                    .mapToObj(index -> BatchPaymentResultDto.failure(index, "inválido"))
+                    .toList();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        paymentImportService.shutdown();
+    }
+
+    @Test
+    void shouldReportParseAndValidationErrorsPerLineOnCsvImport() throws Exception {
+        var csv = """
+                debitCode,userIdentification,method,cardNumber,paymentValue
+                1,12345678901,PIX,,10.00
+                abc,12345678901,PIX,,10.00
+                """;
+
+        var job = paymentImportService.startImport(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                PaymentImportFormat.CSV
+        );
+
+        var finishedJob = awaitJob(job.id());
+
+        assertThat(finishedJob.status()).isEqualTo(PaymentImportStatus.COMPLETED);
+        assertThat(finishedJob.processedLines()).isEqualTo(2);
+        assertThat(finishedJob.failedLines()).isEqualTo(2);
+        assertThat(finishedJob.errors()).extracting(error -> error.line()).containsExactly(2L, 3L);
+    }
+
+    @Test
+    void shouldReimportAnExportedCsvWithQuotedFields() throws Exception {
+        var exported = new ByteArrayOutputStream();
+        var writer = PaymentExportFormat.CSV.open(exported, new ObjectMapper());
+        writer.write(new PaymentDto(UUID.randomUUID(), 1L, "123,\"45\"\n678", PaymentMethod.PIX, PaymentStatus.PENDING, new BigDecimal("10.50")));
+        writer.write(new PaymentDto(UUID.randomUUID(), 2L, "12345678901", PaymentMethod.BILLET, PaymentStatus.PENDING, new BigDecimal("7")));
+        writer.finish();
+
+        var job = paymentImportService.startImport(new ByteArrayInputStream(exported.toByteArray()), PaymentImportFormat.CSV);
+
+        var finishedJob = awaitJob(job.id());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<CreatePaymentDto>> payments = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(paymentService).createPayments(payments.capture());
+
+        assertThat(finishedJob.status()).isEqualTo(PaymentImportStatus.COMPLETED);
+        assertThat(payments.getValue()).containsExactly(
+                new CreatePaymentDto(1L, "123,\"45\"\n678", PaymentMethod.PIX, null, new BigDecimal("10.50")),
+                new CreatePaymentDto(2L, "12345678901", PaymentMethod.BILLET, null, new BigDecimal("7"))
+        );
+        assertThat(finishedJob.errors()).extracting(error -> error.line()).containsExactly(2L, 4L);
+    }
+
+    @Test
+    void shouldRefuseACsvWithoutTheRequiredColumnsBeforeStartingAJob() {
+        var csv = """
+                debitCode,method,paymentValue
+                1,PIX,10.00
+                """;
+
+        assertThatThrownBy(() -> paymentImportService.startImport(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                PaymentImportFormat.CSV
+        )).isInstanceOfSatisfying(ResponseStatusException.class, e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+
+        Mockito.verify(paymentService, Mockito.never()).createPayments(Mockito.anyList());
+    }
+
+    private PaymentImportJobDto awaitJob(UUID jobId) throws InterruptedException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            var job = paymentImportService.getImportJob(jobId);
+
+            if (job.status() == PaymentImportStatus.COMPLETED || job.status() == PaymentImportStatus.FAILED) {
+                return job;
+            }
+
+            Thread.sleep(50);
+        }
+
+        throw new AssertionError("A importação não terminou a tempo");
+    }
+
+}
@@ -1,27 +1,55 @@
 package dev.payments.api.services;
 
 import com.github.javafaker.Faker;
+import dev.payments.api.domain.entities.ArchivedPayment;
 import dev.payments.api.domain.entities.Payment;
 import dev.payments.api.domain.entities.PaymentMethod;
 import dev.payments.api.domain.entities.PaymentStatus;
+import dev.payments.api.domain.repositories.ArchivedPaymentRepository;
 import dev.payments.api.domain.repositories.PaymentRepository;
+import dev.payments.api.domain.repositories.PaymentSortKeyRow;
+import dev.payments.api.domain.repositories.PaymentStatusView;
 import dev.payments.api.domain.services.PaymentServiceImpl;
+import dev.payments.api.infrastructure.metrics.PaymentMetrics;
+import dev.payments.api.infrastructure.sharding.PaymentShards;
 import dev.payments.api.presentation.dtos.CreatePaymentDto;
+import dev.payments.api.presentation.dtos.PaymentDto;
+import dev.payments.api.presentation.dtos.PaymentFilterDto;
+import dev.payments.api.presentation.dtos.RejectedPaymentDto;
+import dev.payments.api.presentation.dtos.UpdatePaymentStatusBatchItemDto;
 import dev.payments.api.presentation.dtos.UpdatePaymentStatusDto;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.Executors;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @ExtendWith(MockitoExtension.class)
 public class PaymentServiceTest {
@@ -32,8 +60,38 @@ public class PaymentServiceTest {
     @Mock
     private PaymentRepository paymentRepository;
 
+    @Mock
+    private ArchivedPaymentRepository archivedPaymentRepository;
+
+    @Mock
+    private PaymentMetrics paymentMetrics;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private PaymentShards paymentShards = PaymentShards.single();
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
     private static final Faker faker = new Faker();
 
+    // The service is called without its proxy, so the transaction it would run in is
+    // stood in for by an active synchronization.
+    @BeforeEach
+    void beginTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void endTransaction() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
     @Test
     void shouldThrowsBadRequestWhenCardNumberIsNotNullAndPaymentMethodDoesNotUseCardOnCreatePayment() {
         var payment = new CreatePaymentDto(
@@ -51,6 +109,18 @@ public class PaymentServiceTest {
         }
     }
 
+    @Test
+    void shouldThrowBadRequestOnCursorOutOfTheTimestampRangeAtScrollPayments() {
+        var randomId = UUID.randomUUID();
+
+        for (String seconds : List.of(String.valueOf(Long.MAX_VALUE), "31556889864403199")) {
+            var cursor = Base64.getUrlEncoder().encodeToString(("v1:" + seconds + ":0:" + randomId).getBytes(StandardCharsets.UTF_8));
+
+            assertThatThrownBy(() -> paymentService.scrollPayments(PaymentFilterDto.empty(), cursor, 20))
+                    .isInstanceOfSatisfying(ResponseStatusException.class, e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+        }
+    }
+
     @Test
     void shouldThrowsBadRequestWhenCardNumberIsNullAndPaymentMethodUsesCardOnCreatePayment() {
         var payment = new CreatePaymentDto(
@@ -94,6 +164,53 @@ public class PaymentServiceTest {
         Mockito.verify(paymentRepository, Mockito.atLeastOnce()).save(payment);
     }
 
+    @Test
+    void shouldReportEachItemOnCreatePayments() {
+        var validPayment = new CreatePaymentDto(
+                faker.number().randomNumber(),
+                faker.number().digits(11),
+                PaymentMethod.PIX,
+                null,
+                BigDecimal.valueOf(faker.number().randomNumber())
+        );
+
+        var invalidCardPayment = new CreatePaymentDto(
+                faker.number().randomNumber(),
+                faker.number().digits(14),
+                PaymentMethod.CREDIT_CARD,
+                null,
+                BigDecimal.valueOf(faker.number().randomNumber())
+        );
+
+        var invalidIdentificationPayment = new CreatePaymentDto(
+                faker.number().randomNumber(),
+                faker.number().digits(5),
+                PaymentMethod.BILLET,
+                null,
+                BigDecimal.valueOf(faker.number().randomNumber())
+        );
+
+        Mockito.when(paymentRepository.saveAll(Mockito.anyList())).thenAnswer(invocation -> {
+            List<Payment> payments = invocation.getArgument(0);
+            payments.forEach(payment -> payment.setId(UUID.randomUUID()));
+            return payments;
+        });
+
+        var results = paymentService.createPayments(
+                List.of(validPayment, invalidCardPayment, invalidIdentificationPayment)
+        );
+
+        assertThat(results).hasSize(3);
+        assertThat(results.get(0).payment()).isNotNull();
+        assertThat(results.get(0).error()).isNull();
+        assertThat(results.get(1).payment()).isNull();
+        assertThat(results.get(1).error()).isNotNull();
+        assertThat(results.get(2).payment()).isNull();
+        assertThat(results.get(2).error()).contains("userIdentification");
+
+        Mockito.verify(paymentRepository, Mockito.times(1)).saveAll(Mockito.anyList());
+    }
+
     @Test
     void shouldThrowsNotFoundWhenPaymentIsNotFoundOnUpdatePaymentStatus() {
         var paymentId = UUID.randomUUID();
@@ -188,25 +305,113 @@ public class PaymentServiceTest {
         var paymentId = UUID.randomUUID();
         var dto = new UpdatePaymentStatusDto(PaymentStatus.SUCCESS);
 
+        var previous = statusView(paymentId, PaymentStatus.PENDING, false);
+        Mockito.when(previous.getDebitCode()).thenReturn(42L);
+
+        Mockito.when(paymentRepository.updateStatusReturningPrevious(paymentId, List.of(PaymentStatus.PENDING), PaymentStatus.SUCCESS))
+                .thenReturn(Optional.of(previous));
+
+        var updatedPayment = paymentService.updatePaymentStatus(paymentId, dto);
+
+        assertThat(updatedPayment.status()).isEqualTo(PaymentStatus.SUCCESS);
+        assertThat(updatedPayment.debitCode()).isEqualTo(42L);
+
+        Mockito.verify(paymentRepository, Mockito.never()).findById(paymentId);
+        Mockito.verify(paymentMetrics).recordTransition(PaymentStatus.PENDING, PaymentStatus.SUCCESS, 1);
+    }
+
+    @Test
+    void shouldThrowsConflictWhenPaymentChangedConcurrentlyOnUpdatePaymentStatus() {
+        var paymentId = UUID.randomUUID();
+        var dto = new UpdatePaymentStatusDto(PaymentStatus.FAILED);
+
         var payment = new Payment();
         payment.setId(paymentId);
         payment.setStatus(PaymentStatus.PENDING);
         payment.setCancelled(false);
+        payment.setVersion(3L);
 
+        // The UPDATE matched nothing, yet the row read afterwards allows the change again.
+        Mockito.when(paymentRepository.updateStatusReturningPrevious(paymentId, List.of(PaymentStatus.PENDING), PaymentStatus.FAILED))
+                .thenReturn(Optional.empty());
         Mockito.when(paymentRepository.findById(paymentId)).thenReturn(Optional.of(payment));
 
-        var expectedPayment = new Payment();
-        expectedPayment.setId(paymentId);
-        expectedPayment.setStatus(PaymentStatus.SUCCESS);
-        expectedPayment.setCancelled(false);
-
-        Mockito.when(paymentRepository.save(expectedPayment)).thenReturn(expectedPayment);
+        try {
+            paymentService.updatePaymentStatus(paymentId, dto);
+        } catch (ResponseStatusException e) {
+            assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        }
 
-        var updatedPayment = paymentService.updatePaymentStatus(paymentId, dto);
+        Mockito.verify(paymentMetrics).recordRejection(PaymentMetrics.Rejection.CONCURRENT_MODIFICATION);
+        Mockito.verify(paymentMetrics, Mockito.never()).recordTransition(
+                Mockito.any(), Mockito.any(), Mockito.anyInt()
+        );
+    }
 
-        assertThat(updatedPayment.status()).isEqualTo(PaymentStatus.SUCCESS);
+    @Test
+    void shouldRejectInvalidTransitionsOnUpdatePaymentStatuses() {
+        var pendingId = UUID.randomUUID();
+        var successfulId = UUID.randomUUID();
+        var missingId = UUID.randomUUID();
+
+        var pending = statusView(pendingId, PaymentStatus.PENDING, false);
+        var successful = statusView(successfulId, PaymentStatus.SUCCESS, false);
+
+        Mockito.when(paymentRepository.findStatusesByIdIn(List.of(pendingId, successfulId, missingId)))
+                .thenReturn(List.of(pending, successful));
+
+        Mockito.when(paymentRepository.updateStatusByIdIn(
+                List.of(pendingId),
+                List.of(PaymentStatus.PENDING),
+                PaymentStatus.SUCCESS
+        )).thenReturn(1);
+
+        var result = paymentService.updatePaymentStatuses(List.of(
+                new UpdatePaymentStatusBatchItemDto(pendingId, PaymentStatus.SUCCESS),
+                new UpdatePaymentStatusBatchItemDto(successfulId, PaymentStatus.FAILED),
+                new UpdatePaymentStatusBatchItemDto(missingId, PaymentStatus.SUCCESS)
+        ));
+
+        assertThat(result.updated()).containsExactly(pendingId);
+        assertThat(result.rejected()).extracting(RejectedPaymentDto::id).containsExactly(successfulId, missingId);
+    }
 
-        Mockito.verify(paymentRepository, Mockito.atLeastOnce()).save(payment);
+    @Test
+    void shouldRedoTheChunkRowByRowWhenPaymentsChangeConcurrentlyOnUpdatePaymentStatuses() {
+        var movedHereId = UUID.randomUUID();
+        var movedElsewhereId = UUID.randomUUID();
+
+        var movedHere = statusView(movedHereId, PaymentStatus.PENDING, false);
+        var movedElsewhere = statusView(movedElsewhereId, PaymentStatus.PENDING, false);
+        Mockito.when(movedHere.getVersion()).thenReturn(1L);
+        Mockito.when(movedElsewhere.getVersion()).thenReturn(4L);
+
+        Mockito.when(transactionManager.getTransaction(ArgumentMatchers.any()))
+                .thenAnswer(invocation -> new SimpleTransactionStatus());
+
+        Mockito.when(paymentRepository.findStatusesByIdIn(List.of(movedHereId, movedElsewhereId)))
+                .thenReturn(List.of(movedHere, movedElsewhere));
+
+        // The other writer already moved one of them to SUCCESS, which the bulk UPDATE counts.
+        Mockito.when(paymentRepository.updateStatusByIdIn(
+                List.of(movedHereId, movedElsewhereId),
+                List.of(PaymentStatus.PENDING),
+                PaymentStatus.SUCCESS
+        )).thenReturn(1);
+        Mockito.when(paymentRepository.updateStatus(movedHereId, 1L, List.of(PaymentStatus.PENDING), PaymentStatus.SUCCESS))
+                .thenReturn(1);
+        Mockito.when(paymentRepository.updateStatus(movedElsewhereId, 4L, List.of(PaymentStatus.PENDING), PaymentStatus.SUCCESS))
+                .thenReturn(0);
+
+        var result = paymentService.updatePaymentStatuses(List.of(
+                new UpdatePaymentStatusBatchItemDto(movedHereId, PaymentStatus.SUCCESS),
+                new UpdatePaymentStatusBatchItemDto(movedElsewhereId, PaymentStatus.SUCCESS)
+        ));
+
+        assertThat(result.updated()).containsExactly(movedHereId);
+        assertThat(result.rejected()).extracting(RejectedPaymentDto::id).containsExactly(movedElsewhereId);
+
+        Mockito.verify(eventPublisher, Mockito.times(1)).publishEvent(ArgumentMatchers.any(Object.class));
     }
 
     @Test
@@ -261,23 +466,91 @@ public class PaymentServiceTest {
     void shouldReturnsCorrectlyOnDeletePayment() {
         var paymentId = UUID.randomUUID();
 
-        var payment = new Payment();
-        payment.setId(paymentId);
-        payment.setStatus(PaymentStatus.PENDING);
-        payment.setCancelled(false);
+        var previous = statusView(paymentId, PaymentStatus.PENDING, false);
 
-        Mockito.when(paymentRepository.findById(paymentId)).thenReturn(Optional.of(payment));
+        Mockito.when(paymentRepository.cancelReturningPrevious(paymentId, List.of(PaymentStatus.PENDING)))
+                .thenReturn(Optional.of(previous));
 
-        var expectedPayment = new Payment();
-        expectedPayment.setId(paymentId);
-        expectedPayment.setStatus(PaymentStatus.PENDING);
-        expectedPayment.setCancelled(true);
+        paymentService.deletePayment(paymentId);
 
-        Mockito.when(paymentRepository.save(expectedPayment)).thenReturn(expectedPayment);
+        Mockito.verify(paymentRepository, Mockito.never()).findById(paymentId);
+        Mockito.verify(paymentMetrics).recordCancellation(PaymentStatus.PENDING);
+    }
 
-        paymentService.deletePayment(paymentId);
+    @Test
+    void shouldReadArchivedPaymentsWhenMissingFromThePaymentsTable() {
+        var paymentId = UUID.randomUUID();
 
-        Mockito.verify(paymentRepository, Mockito.atLeastOnce()).save(payment);
+        var archivedPayment = Mockito.mock(ArchivedPayment.class);
+        Mockito.when(archivedPayment.getId()).thenReturn(paymentId);
+        Mockito.when(archivedPayment.getStatus()).thenReturn(PaymentStatus.SUCCESS);
+        Mockito.when(archivedPayment.getVersion()).thenReturn(3L);
+
+        Mockito.when(paymentRepository.findById(paymentId)).thenReturn(Optional.empty());
+        Mockito.when(archivedPaymentRepository.findById(paymentId)).thenReturn(Optional.of(archivedPayment));
+
+        var payment = paymentService.getPayment(paymentId);
+
+        assertThat(payment.payment().id()).isEqualTo(paymentId);
+        assertThat(payment.payment().status()).isEqualTo(PaymentStatus.SUCCESS);
+        assertThat(payment.version()).isEqualTo(3L);
+    }
+
+    @Test
+    void shouldRefuseWritesToArchivedPaymentsByTheirStatus() {
+        var paymentId = UUID.randomUUID();
+
+        var archivedPayment = Mockito.mock(ArchivedPayment.class);
+        Mockito.when(archivedPayment.getStatus()).thenReturn(PaymentStatus.SUCCESS);
+
+        Mockito.when(paymentRepository.findById(paymentId)).thenReturn(Optional.empty());
+        Mockito.when(archivedPaymentRepository.findById(paymentId)).thenReturn(Optional.of(archivedPayment));
+
+        assertThatThrownBy(() -> paymentService.updatePaymentStatus(paymentId, new UpdatePaymentStatusDto(PaymentStatus.FAILED)))
+                .isInstanceOfSatisfying(ResponseStatusException.class, e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+        assertThatThrownBy(() -> paymentService.deletePayment(paymentId))
+                .isInstanceOfSatisfying(ResponseStatusException.class, e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+
+    @Test
+    void shouldMergeThePagesOfEveryShardInTheRequestedOrder() {
+        var shards = new PaymentShards(2, Executors.newFixedThreadPool(2));
+        var shardedService = new PaymentServiceImpl(
+                paymentRepository, archivedPaymentRepository, validator, paymentMetrics, eventPublisher, transactionManager, shards
+        );
+
+        var pageable = PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "paymentValue"));
+
+        Mockito.when(paymentRepository.findPaymentDtosWithSortKeys(
+                ArgumentMatchers.eq(Payment.class), ArgumentMatchers.any(), ArgumentMatchers.eq(PageRequest.of(0, 4, pageable.getSort()))
+        )).thenReturn(
+                new PageImpl<>(List.of(sortKeyRow(90), sortKeyRow(50), sortKeyRow(40), sortKeyRow(10)), PageRequest.of(0, 4), 7),
+                new PageImpl<>(List.of(sortKeyRow(80), sortKeyRow(70), sortKeyRow(20)), PageRequest.of(0, 4), 3)
+        );
+
+        try {
+            var page = shardedService.getPayments(PaymentFilterDto.empty(), pageable);
+
+            assertThat(page.getContent()).extracting(PaymentDto::value)
+                    .containsExactly(BigDecimal.valueOf(70), BigDecimal.valueOf(50));
+            assertThat(page.getTotalElements()).isEqualTo(10);
+        } finally {
+            shards.close();
+        }
+    }
+
+    private static PaymentSortKeyRow sortKeyRow(long value) {
+        var id = UUID.randomUUID();
+        var payment = new PaymentDto(id, 1L, "12345678901", PaymentMethod.PIX, PaymentStatus.PENDING, BigDecimal.valueOf(value));
+        return new PaymentSortKeyRow(payment, List.of(BigDecimal.valueOf(value), id));
+    }
+
+    private static PaymentStatusView statusView(UUID id, PaymentStatus status, boolean cancelled) {
+        var view = Mockito.mock(PaymentStatusView.class);
+        Mockito.lenient().when(view.getId()).thenReturn(id);
+        Mockito.lenient().when(view.getStatus()).thenReturn(status);
+        Mockito.lenient().when(view.getCancelled()).thenReturn(cancelled);
+        return view;
     }
 
 }
@@ -0,0 +1,43 @@
+package dev.payments.api.services;
+
+import dev.payments.api.domain.entities.PaymentStatus;
+import dev.payments.api.domain.services.PaymentStateMachine;
+import dev.payments.api.domain.services.PaymentStateMachine.Verdict;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PaymentStateMachineTest {
+
+    @Test
+    void shouldAllowOnlyTheDocumentedTransitions() {
+        assertThat(PaymentStateMachine.transition(PaymentStatus.PENDING, PaymentStatus.SUCCESS)).isEqualTo(Verdict.ALLOWED);
+        assertThat(PaymentStateMachine.transition(PaymentStatus.PENDING, PaymentStatus.FAILED)).isEqualTo(Verdict.ALLOWED);
+        assertThat(PaymentStateMachine.transition(PaymentStatus.FAILED, PaymentStatus.PENDING)).isEqualTo(Verdict.ALLOWED);
+
+        assertThat(PaymentStateMachine.transition(PaymentStatus.PENDING, PaymentStatus.PENDING))
+                .isEqualTo(Verdict.PENDING_REQUIRES_FINAL);
+        assertThat(PaymentStateMachine.transition(PaymentStatus.FAILED, PaymentStatus.SUCCESS))
+                .isEqualTo(Verdict.FAILED_REQUIRES_PENDING);
+        assertThat(PaymentStateMachine.transition(PaymentStatus.FAILED, PaymentStatus.FAILED))
+                .isEqualTo(Verdict.FAILED_REQUIRES_PENDING);
+
+        for (PaymentStatus target : PaymentStatus.values()) {
+            assertThat(PaymentStateMachine.transition(PaymentStatus.SUCCESS, target))
+                    .isEqualTo(Verdict.ALREADY_SUCCEEDED);
+        }
+    }
+
+    @Test
+    void shouldDeriveUpdateGuardsFromTheTransitions() {
+        assertThat(PaymentStateMachine.sourcesOf(PaymentStatus.SUCCESS)).containsExactly(PaymentStatus.PENDING);
+        assertThat(PaymentStateMachine.sourcesOf(PaymentStatus.FAILED)).containsExactly(PaymentStatus.PENDING);
+        assertThat(PaymentStateMachine.sourcesOf(PaymentStatus.PENDING)).containsExactly(PaymentStatus.FAILED);
+
+        assertThat(PaymentStateMachine.cancellableStatuses()).containsExactly(PaymentStatus.PENDING);
+        assertThat(PaymentStateMachine.cancellation(PaymentStatus.SUCCESS)).isEqualTo(Verdict.NOT_CANCELLABLE);
+
+        assertThat(PaymentStateMachine.terminalStatuses()).containsExactly(PaymentStatus.SUCCESS);
+    }
+
+}
@@ -0,0 +1,77 @@
+package dev.payments.api.services;
+
+import dev.payments.api.domain.entities.Payment;
+import dev.payments.api.domain.entities.PaymentMethod;
+import dev.payments.api.domain.entities.PaymentStatus;
+import dev.payments.api.domain.events.PaymentChangedEvent;
+import dev.payments.api.domain.services.PaymentStreamServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentStreamServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // Dispatch tasks are only collected, which makes every subscriber look stalled.
+    private final List<Runnable> dispatched = new ArrayList<>();
+
+    private PaymentStreamServiceImpl paymentStreamService;
+
+    @BeforeEach
+    void setUp() {
+        paymentStreamService = new PaymentStreamServiceImpl(meterRegistry, 2, Duration.ofMinutes(1), Duration.ofSeconds(10), dispatched::add);
+    }
+
+    @Test
+    void shouldOnlyDispatchChangesToMatchingSubscribers() {
+        paymentStreamService.subscribe("12345678901", null);
+        paymentStreamService.subscribe("12345678901", 42L);
+
+        paymentStreamService.onPaymentChanged(PaymentChangedEvent.created(payment("10987654321", 42L)));
+        assertThat(dispatched).isEmpty();
+
+        paymentStreamService.onPaymentChanged(PaymentChangedEvent.created(payment("12345678901", 7L)));
+        assertThat(dispatched).hasSize(1);
+
+        paymentStreamService.onPaymentChanged(PaymentChangedEvent.created(payment("12345678901", 42L)));
+        assertThat(dispatched).hasSize(2);
+    }
+
+    @Test
+    void shouldDisconnectSubscribersThatFallBehind() {
+        paymentStreamService.subscribe(null, 42L);
+        var payment = payment("12345678901", 42L);
+
+        for (int i = 0; i < 3; i++) {
+            paymentStreamService.onPaymentChanged(PaymentChangedEvent.cancelled(payment));
+        }
+
+        assertThat(meterRegistry.get("payments.stream.slow.consumers").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("payments.stream.subscribers").gauge().value()).isZero();
+
+        paymentStreamService.onPaymentChanged(PaymentChangedEvent.cancelled(payment));
+        // One drain for the first change, then the deferred completion of the emitter.
+        assertThat(dispatched).hasSize(2);
+    }
+
+    private static Payment payment(String userIdentification, Long debitCode) {
+        var payment = new Payment();
+        payment.setId(UUID.randomUUID());
+        payment.setDebitCode(debitCode);
+        payment.setUserIdentification(userIdentification);
+        payment.setMethod(PaymentMethod.PIX);
+        payment.setStatus(PaymentStatus.PENDING);
+        payment.setPaymentValue(BigDecimal.TEN);
+        return payment;
+    }
+
+}
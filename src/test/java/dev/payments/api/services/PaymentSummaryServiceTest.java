@@ -0,0 +1,111 @@
+package dev.payments.api.services;
+
+import dev.payments.api.domain.entities.Payment;
+import dev.payments.api.domain.entities.PaymentMethod;
+import dev.payments.api.domain.entities.PaymentStatus;
+import dev.payments.api.domain.entities.PaymentSummaryId;
+import dev.payments.api.domain.events.PaymentChangedEvent;
+import dev.payments.api.domain.repositories.PaymentSummaryRepository;
+import dev.payments.api.domain.services.PaymentSummaryServiceImpl;
+import dev.payments.api.infrastructure.sharding.PaymentShards;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+public class PaymentSummaryServiceTest {
+
+    @Mock
+    private PaymentSummaryRepository paymentSummaryRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PaymentSummaryServiceImpl paymentSummaryService;
+
+    @BeforeEach
+    void setUp() {
+        paymentSummaryService = new PaymentSummaryServiceImpl(paymentSummaryRepository, transactionManager, PaymentShards.single());
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void shouldApplyNetDeltasBeforeCommitAndCountersAfterCommit() {
+        var payment = payment(new BigDecimal("10.50"));
+
+        paymentSummaryService.onPaymentChanged(PaymentChangedEvent.created(payment));
+        paymentSummaryService.onPaymentChanged(PaymentChangedEvent.statusChanged(
+                payment.getId(),
+                payment.getDebitCode(),
+                payment.getUserIdentification(),
+                payment.getMethod(),
+                payment.getPaymentValue(),
+                PaymentStatus.PENDING,
+                PaymentStatus.SUCCESS
+        ));
+
+        var synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationUtils.triggerBeforeCommit(false);
+
+        // PENDING nets out within the transaction, so only the SUCCESS row is written.
+        Mockito.verify(paymentSummaryRepository).increment(
+                new PaymentSummaryId("12345678901", PaymentStatus.SUCCESS, PaymentMethod.PIX),
+                1,
+                new BigDecimal("10.50")
+        );
+        Mockito.verifyNoMoreInteractions(paymentSummaryRepository);
+
+        assertThat(paymentSummaryService.getSummary(null).total().paymentCount()).isZero();
+
+        TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_COMMITTED);
+
+        var summary = paymentSummaryService.getSummary(null);
+        assertThat(summary.total().paymentCount()).isEqualTo(1);
+        assertThat(summary.byStatus().get(PaymentStatus.SUCCESS).totalValue()).isEqualByComparingTo("10.50");
+        assertThat(summary.byStatus().get(PaymentStatus.PENDING).paymentCount()).isZero();
+        assertThat(summary.byMethod().get(PaymentMethod.PIX).paymentCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldLeaveCountersUntouchedOnRollback() {
+        paymentSummaryService.onPaymentChanged(PaymentChangedEvent.created(payment(BigDecimal.TEN)));
+
+        var synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(paymentSummaryService.getSummary(null).total().paymentCount()).isZero();
+        Mockito.verifyNoInteractions(paymentSummaryRepository);
+    }
+
+    private static Payment payment(BigDecimal value) {
+        var payment = new Payment();
+        payment.setId(UUID.randomUUID());
+        payment.setUserIdentification("12345678901");
+        payment.setMethod(PaymentMethod.PIX);
+        payment.setStatus(PaymentStatus.PENDING);
+        payment.setPaymentValue(value);
+        return payment;
+    }
+
+}